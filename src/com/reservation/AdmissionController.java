@@ -0,0 +1,247 @@
+package com.reservation;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdmissionController - overload protection in front of ReservationSystem
+ * Each call must pass a per-user token bucket, a per-transport token bucket (bookings)
+ * and a cap on calls running at once. Anything over a limit is rejected immediately
+ * instead of queueing, so the system keeps serving admitted requests at full speed.
+ * Rejected calls return null / false / an empty list, like other failed calls.
+ * Limiter state is kept for at most maxTrackedKeys users and transports; while that is
+ * full (and nothing is idle enough to evict) calls from new keys are rejected and counted
+ * separately, rather than sharing one bucket that a single heavy client could drain.
+ */
+public class AdmissionController {
+    private static final long SWEEP_INTERVAL_NANOS = 100_000_000L; // at most one idle sweep per 100 ms
+
+    private enum Decision { ADMIT, RATE_LIMITED, TABLE_FULL }
+
+    // Token buckets by key, bounded in size; full (idle) buckets are evicted
+    private static final class LimiterTable {
+        private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final double tokensPerSecond;
+        private final int burst;
+        private final int maxEntries;
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+        private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+        LimiterTable(double tokensPerSecond, int burst, int maxEntries) {
+            this.tokensPerSecond = tokensPerSecond;
+            this.burst = burst;
+            this.maxEntries = maxEntries;
+        }
+
+        Decision tryAcquire(String key, long now) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxEntries) {
+                    evictIdle(now);
+                }
+                if (buckets.size() >= maxEntries) {
+                    return Decision.TABLE_FULL;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(tokensPerSecond, burst, now));
+            }
+            return bucket.tryAcquire(now) ? Decision.ADMIT : Decision.RATE_LIMITED;
+        }
+
+        // Drop buckets that have refilled completely - forgetting them changes nothing
+        private void evictIdle(long now) {
+            long last = lastSweepNanos.get();
+            if (now - last < SWEEP_INTERVAL_NANOS || !sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                lastSweepNanos.set(now);
+                Iterator<TokenBucket> iterator = buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().isFull(now)) {
+                        iterator.remove();
+                    }
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+
+        // Refund a token taken by tryAcquire
+        void release(String key) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.release();
+            }
+        }
+
+        int size() {
+            return buckets.size();
+        }
+    }
+
+    private final ReservationSystem system;
+    private final LimiterTable userLimits;
+    private final LimiterTable transportLimits;
+    private final Semaphore concurrency;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedByUser = new LongAdder();
+    private final LongAdder rejectedByTransport = new LongAdder();
+    private final LongAdder rejectedByConcurrency = new LongAdder();
+    private final LongAdder rejectedUntracked = new LongAdder(); // limiter table full
+
+    public AdmissionController(ReservationSystem system,
+                               double userRequestsPerSecond, int userBurst,
+                               double transportBookingsPerSecond, int transportBurst,
+                               int maxConcurrentRequests, int maxTrackedKeys) {
+        this.system = system;
+        this.userLimits = new LimiterTable(userRequestsPerSecond, userBurst, maxTrackedKeys);
+        this.transportLimits = new LimiterTable(transportBookingsPerSecond, transportBurst, maxTrackedKeys);
+        this.concurrency = new Semaphore(maxConcurrentRequests);
+    }
+
+    public List<Transport> searchTransports(String userId, String source, String destination) {
+        if (!admit(userId, null)) {
+            return new ArrayList<>();
+        }
+        try {
+            return system.searchTransports(source, destination);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public List<Transport> searchTransports(String userId, String source, String destination,
+                                            LocalTime from, LocalTime to, ScheduleIndex.SortOrder order) {
+        if (!admit(userId, null)) {
+            return new ArrayList<>();
+        }
+        try {
+            return system.searchTransports(source, destination, from, to, order);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public Ticket bookTicket(String userId, String transportId, int seatNumber) {
+        if (!admit(userId, transportId)) {
+            return null;
+        }
+        try {
+            return system.bookTicket(userId, transportId, seatNumber);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public Ticket bookTicket(String requestId, String userId, String transportId, int seatNumber) {
+        if (!admit(userId, transportId)) {
+            return null;
+        }
+        try {
+            return system.bookTicket(requestId, userId, transportId, seatNumber);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public Ticket bookBestSeat(String userId, String transportId, SeatPreference preference) {
+        if (!admit(userId, transportId)) {
+            return null;
+        }
+        try {
+            return system.bookBestSeat(userId, transportId, preference);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public boolean cancelTicket(String userId, String ticketId) {
+        if (!admit(userId, null)) {
+            return false;
+        }
+        try {
+            return system.cancelTicket(ticketId);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    // Check the limits and take a concurrency slot; the caller releases it when done
+    // Tokens taken by earlier checks are given back if a later check rejects the call,
+    // so a request turned away for one reason doesn't also count against the others
+    private boolean admit(String userId, String transportId) {
+        long now = System.nanoTime();
+        String userKey = userId == null ? "" : userId;
+        Decision user = userLimits.tryAcquire(userKey, now);
+        if (user != Decision.ADMIT) {
+            if (user == Decision.TABLE_FULL) {
+                rejectedUntracked.increment();
+                return reject("❌ The system is busy - please try again shortly.");
+            }
+            rejectedByUser.increment();
+            return reject("❌ Too many requests - please slow down and try again.");
+        }
+        Decision transport = transportId == null ? Decision.ADMIT : transportLimits.tryAcquire(transportId, now);
+        if (transport != Decision.ADMIT) {
+            userLimits.release(userKey);
+            if (transport == Decision.TABLE_FULL) {
+                rejectedUntracked.increment();
+                return reject("❌ The system is busy - please try again shortly.");
+            }
+            rejectedByTransport.increment();
+            return reject("❌ " + transportId + " is very busy right now - please try again shortly.");
+        }
+        if (!concurrency.tryAcquire()) {
+            userLimits.release(userKey);
+            if (transportId != null) {
+                transportLimits.release(transportId);
+            }
+            rejectedByConcurrency.increment();
+            return reject("❌ The system is busy - please try again shortly.");
+        }
+        admitted.increment();
+        return true;
+    }
+
+    private boolean reject(String message) {
+        if (system.isConsoleOutput()) {
+            System.out.println(message);
+        }
+        return false;
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getRejectedByUserCount() {
+        return rejectedByUser.sum();
+    }
+
+    public long getRejectedByTransportCount() {
+        return rejectedByTransport.sum();
+    }
+
+    public long getRejectedByConcurrencyCount() {
+        return rejectedByConcurrency.sum();
+    }
+
+    // Calls from new users or transports turned away because the limiter table was full
+    public long getRejectedUntrackedCount() {
+        return rejectedUntracked.sum();
+    }
+
+    // Number of users and transports currently holding limiter state
+    public int getTrackedKeyCount() {
+        return userLimits.size() + transportLimits.size();
+    }
+}
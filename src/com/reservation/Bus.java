@@ -1,48 +1,41 @@
 package com.reservation;
 
+import java.time.LocalTime;
+
 /**
  * Bus class demonstrating Inheritance and Polymorphism
  * Extends the Transport abstract class
+ * Its data lives in a TransportTable row - fares are priced by the table
  */
 public class Bus extends Transport {
-    private String busType; // AC, Non-AC, Sleeper, etc.
-    
+    // Deprecated: see the constructor below
+    @Deprecated
     public Bus(String transportId, String source, String destination, int totalSeats, double basePrice, String busType) {
-        super(transportId, source, destination, totalSeats, basePrice);
-        this.busType = busType;
+        this(transportId, source, destination, totalSeats, basePrice, busType, null, null);
     }
     
-    @Override
-    public String getTransportType() {
-        return "BUS";
+    // Deprecated: created on its own, a bus gets a one-row table of its own, and
+    // ReservationSystem.addTransport() rejects it - create it in getTransportTable() instead
+    @Deprecated
+    public Bus(String transportId, String source, String destination, int totalSeats, double basePrice, String busType,
+               LocalTime departureTime, LocalTime arrivalTime) {
+        this(new TransportTable(), transportId, source, destination, totalSeats, basePrice, busType,
+             departureTime, arrivalTime);
     }
     
-    @Override
-    public double calculatePrice(int seatNumber) {
-        // Different pricing logic for buses
-        double price = getBasePrice();
-        
-        // Window seats (odd numbers) cost more
-        if (seatNumber % 2 != 0) {
-            price += 50;
-        }
-        
-        // AC buses cost more
-        if (busType.equalsIgnoreCase("AC")) {
-            price += 200;
-        } else if (busType.equalsIgnoreCase("Sleeper")) {
-            price += 300;
-        }
-        
-        return price;
+    // Create the bus as a row of the given table (a system's table - see ReservationSystem.getTransportTable())
+    public Bus(TransportTable table, String transportId, String source, String destination, int totalSeats,
+               double basePrice, String busType, LocalTime departureTime, LocalTime arrivalTime) {
+        super(table, transportId, source, destination, totalSeats, basePrice, TransportTable.TYPE_BUS, busType,
+              departureTime, arrivalTime);
     }
     
     public String getBusType() {
-        return busType;
+        return getTable().getClassName(getRow());
     }
     
     @Override
     public String toString() {
-        return super.toString() + " [Type: " + busType + "]";
+        return super.toString() + " [Type: " + getBusType() + "]";
     }
 }
@@ -0,0 +1,213 @@
+package com.reservation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * DataStore - crash-consistent storage for the .dat files
+ * Every save is a new generation: each file is written to a temp file, fsynced and
+ * renamed into place, then a manifest listing the files and their checksums is
+ * committed the same way. A generation only exists once its manifest does, so a
+ * crash mid-save leaves the previous generation untouched. Loading verifies the
+ * checksums and falls back to the previous generation if anything is damaged.
+ * Pruning always keeps the newest generation known to be intact alongside the one just
+ * written, so a recovery never leaves a damaged generation as the only fallback.
+ */
+public class DataStore {
+    private static final String MANIFEST_PREFIX = "manifest.";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Reads one generation's files; throwing makes the store try an older generation
+    public interface Loader {
+        void load(Map<String, byte[]> files) throws IOException, ClassNotFoundException;
+    }
+
+    private final Path directory;
+    private long generation; // highest generation number in use (possibly a damaged one)
+    private long verifiedGeneration; // newest generation known to be intact, 0 if none
+
+    public DataStore(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    // Atomically commit a new generation containing all the given files
+    public synchronized void commit(Map<String, byte[]> files) throws IOException {
+        Files.createDirectories(directory);
+        long next = generation + 1;
+
+        Properties manifest = new Properties();
+        manifest.setProperty("generation", String.valueOf(next));
+        manifest.setProperty("files", String.join(",", files.keySet()));
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            String fileName = generationFileName(entry.getKey(), next);
+            writeAtomically(directory.resolve(fileName), entry.getValue());
+            manifest.setProperty(entry.getKey() + ".file", fileName);
+            manifest.setProperty(entry.getKey() + ".size", String.valueOf(entry.getValue().length));
+            manifest.setProperty(entry.getKey() + ".crc", String.valueOf(checksum(entry.getValue())));
+        }
+
+        // The manifest rename is the commit point
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        manifest.store(manifestBytes, "GoReserve data generation " + next);
+        writeAtomically(directory.resolve(MANIFEST_PREFIX + next), manifestBytes.toByteArray());
+        syncDirectory();
+        long previous = verifiedGeneration;
+        generation = next;
+        verifiedGeneration = next;
+
+        pruneOldGenerations(previous);
+    }
+
+    // Load the newest valid generation; returns false if nothing has been committed yet
+    // Throws if generations exist but none of them can be read
+    public synchronized boolean load(Loader loader) throws IOException {
+        List<Long> generations = listGenerations();
+        if (generations.isEmpty()) {
+            return false;
+        }
+        generation = generations.get(0); // never reuse a number, even a damaged one
+
+        for (long candidate : generations) {
+            try {
+                loader.load(readGeneration(candidate));
+                verifiedGeneration = candidate;
+                if (candidate != generations.get(0)) {
+                    System.err.println("⚠️  Recovered data from generation " + candidate);
+                }
+                return true;
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                System.err.println("⚠️  Data generation " + candidate + " is damaged (" + e.getMessage() + "), trying previous one");
+            }
+        }
+        throw new IOException("No readable data generation in " + directory + " - refusing to start with empty data");
+    }
+
+    // Newest intact generation (the one loaded or last committed), 0 if none
+    public synchronized long getGeneration() {
+        return verifiedGeneration;
+    }
+
+    // Read and verify every file listed in a generation's manifest
+    private Map<String, byte[]> readGeneration(long gen) throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(MANIFEST_PREFIX + gen))) {
+            manifest.load(in);
+        }
+        if (!String.valueOf(gen).equals(manifest.getProperty("generation"))) {
+            throw new IOException("manifest does not match its generation");
+        }
+
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        String fileList = manifest.getProperty("files", "");
+        for (String name : fileList.isEmpty() ? new String[0] : fileList.split(",")) {
+            String fileName = manifest.getProperty(name + ".file");
+            String size = manifest.getProperty(name + ".size");
+            String crc = manifest.getProperty(name + ".crc");
+            if (fileName == null || size == null || crc == null) {
+                throw new IOException("manifest entry for " + name + " is incomplete");
+            }
+            byte[] data = Files.readAllBytes(directory.resolve(fileName));
+            if (data.length != Long.parseLong(size) || checksum(data) != Long.parseLong(crc)) {
+                throw new IOException("checksum mismatch in " + fileName);
+            }
+            files.put(name, data);
+        }
+        return files;
+    }
+
+    // Write to a temp file, fsync it, then rename over the target
+    private void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Make the renames themselves durable (not supported on every platform)
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories can't be opened for sync on Windows - rename is still atomic
+        }
+    }
+
+    // Keep the current generation and the previous intact one; delete everything else,
+    // including damaged generations skipped during recovery, and stray temp files
+    private void pruneOldGenerations(long previous) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path path : entries) {
+                String name = path.getFileName().toString();
+                long gen = generationOf(name);
+                if (name.endsWith(TEMP_SUFFIX) || (gen >= 0 && gen != generation && gen != previous)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    // Committed generations, newest first
+    private List<Long> listGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return generations;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, MANIFEST_PREFIX + "*")) {
+            for (Path path : entries) {
+                long gen = parseNumber(path.getFileName().toString().substring(MANIFEST_PREFIX.length()));
+                if (gen >= 0) {
+                    generations.add(gen);
+                }
+            }
+        }
+        generations.sort(Collections.reverseOrder());
+        return generations;
+    }
+
+    // "tickets.dat" in generation 7 is stored as "tickets.7.dat"
+    private static String generationFileName(String name, long gen) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name + "." + gen : name.substring(0, dot) + "." + gen + name.substring(dot);
+    }
+
+    // Generation number of a manifest or data file name, or -1 for anything else
+    private static long generationOf(String fileName) {
+        if (fileName.startsWith(MANIFEST_PREFIX)) {
+            return parseNumber(fileName.substring(MANIFEST_PREFIX.length()));
+        }
+        String[] parts = fileName.split("\\.");
+        return parts.length == 3 ? parseNumber(parts[1]) : -1;
+    }
+
+    private static long parseNumber(String text) {
+        if (text.isEmpty() || text.length() > 18) {
+            return -1;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return -1;
+            }
+        }
+        return Long.parseLong(text);
+    }
+
+    private static long checksum(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+}
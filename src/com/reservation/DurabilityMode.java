@@ -0,0 +1,10 @@
+package com.reservation;
+
+/**
+ * How long a mutating call waits for its change to reach disk
+ */
+public enum DurabilityMode {
+    SYNC,         // every booking is written before the call returns; if the write fails, so does the call
+    GROUP_COMMIT, // callers wait for a shared write issued every few milliseconds
+    ASYNC         // calls return immediately; a background thread writes soon after
+}
@@ -0,0 +1,105 @@
+package com.reservation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * IdAllocator hands out monotonic numeric IDs (USER0001, TKT001000, ...)
+ * Threads lease blocks of numbers so the shared counter is touched once per block,
+ * and the ID string is built with a plain char array instead of String.format
+ */
+public class IdAllocator {
+    private final String prefix;
+    private final int width;
+    private final int blockSize;
+
+    private final AtomicLong nextBlockStart; // first number not yet leased to any thread
+    private final LongAccumulator maxIssued; // highest number actually handed out
+    private volatile long epoch; // bumped by advanceTo() to invalidate leased blocks
+
+    private final ThreadLocal<Lease> lease = ThreadLocal.withInitial(Lease::new);
+
+    // Block of numbers owned by a single thread
+    private static final class Lease {
+        long next;
+        long limit;
+        long epoch = -1;
+    }
+
+    public IdAllocator(String prefix, int width, long firstId, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.prefix = prefix;
+        this.width = width;
+        this.blockSize = blockSize;
+        this.nextBlockStart = new AtomicLong(firstId);
+        this.maxIssued = new LongAccumulator(Math::max, firstId - 1);
+    }
+
+    // Allocate the next numeric ID (never returns the same number twice)
+    public long next() {
+        Lease current = lease.get();
+        if (current.next >= current.limit || current.epoch != epoch) {
+            long currentEpoch = epoch;
+            long start = nextBlockStart.getAndAdd(blockSize);
+            current.next = start;
+            current.limit = start + blockSize;
+            current.epoch = currentEpoch;
+        }
+        long id = current.next++;
+        maxIssued.accumulate(id);
+        return id;
+    }
+
+    // Allocate the next ID and render it as a string
+    public String nextId() {
+        return format(next());
+    }
+
+    // Render a numeric ID as prefix + zero-padded number
+    public String format(long id) {
+        int digits = 1;
+        for (long v = id / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int padded = Math.max(digits, width);
+        char[] chars = new char[prefix.length() + padded];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        int pos = chars.length - 1;
+        long v = id;
+        for (int i = 0; i < padded; i++) {
+            chars[pos--] = (char) ('0' + (v % 10));
+            v /= 10;
+        }
+        return new String(chars);
+    }
+
+    // Extract the numeric part of an ID produced by this allocator, or -1 if it doesn't match
+    public long parse(String id) {
+        if (id == null || !id.startsWith(prefix) || id.length() == prefix.length()) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Next number to hand out after a restart - persist this value
+    public long getHighWaterMark() {
+        return maxIssued.get() + 1;
+    }
+
+    // Make sure numbers below the given mark are never handed out again
+    public void advanceTo(long highWaterMark) {
+        nextBlockStart.accumulateAndGet(highWaterMark, Math::max);
+        maxIssued.accumulate(highWaterMark - 1);
+        epoch++; // force every thread to lease a fresh block above the mark
+    }
+}
@@ -0,0 +1,74 @@
+package com.reservation;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReplicationRecord - one committed change shipped from the primary to a standby
+ * A SNAPSHOT carries the full data files (sent once when a standby connects);
+ * a CHANGE carries the users and tickets created or modified by one commit
+ */
+public class ReplicationRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public enum Type { SNAPSHOT, CHANGE }
+    
+    private final Type type;
+    private final long sequence;
+    private final Map<String, byte[]> snapshot; // SNAPSHOT only
+    private final List<User> users; // CHANGE only
+    private final List<Ticket> tickets; // CHANGE only, in the order they changed
+    
+    private ReplicationRecord(Type type, long sequence, Map<String, byte[]> snapshot,
+                              List<User> users, List<Ticket> tickets) {
+        this.type = type;
+        this.sequence = sequence;
+        this.snapshot = snapshot;
+        this.users = users;
+        this.tickets = tickets;
+    }
+    
+    public static ReplicationRecord snapshot(long sequence, Map<String, byte[]> files) {
+        return new ReplicationRecord(Type.SNAPSHOT, sequence, files, null, null);
+    }
+    
+    public static ReplicationRecord change(long sequence, List<User> users, List<Ticket> tickets) {
+        return new ReplicationRecord(Type.CHANGE, sequence, null, users, tickets);
+    }
+    
+    // Serialize right away so later changes to the same Ticket objects aren't picked up
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this);
+        }
+        return bytes.toByteArray();
+    }
+    
+    public static ReplicationRecord fromBytes(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (ReplicationRecord) in.readObject();
+        }
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public Map<String, byte[]> getSnapshot() {
+        return snapshot;
+    }
+    
+    public List<User> getUsers() {
+        return users;
+    }
+    
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+}
@@ -0,0 +1,145 @@
+package com.reservation;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReplicationServer - streams committed changes from the primary to standby instances
+ * A connecting standby first gets a full snapshot, then every later commit in order.
+ * Each standby has its own queue and sender thread so a slow network never blocks
+ * bookings; a standby that falls too far behind is disconnected and resyncs on reconnect.
+ */
+public class ReplicationServer {
+    private static final int MAX_QUEUED_RECORDS = 100_000;
+
+    private final ServerSocket serverSocket;
+    private final Object stateLock;
+    private final WriteBehindFlusher.SnapshotSource source;
+    private final List<Follower> followers = new CopyOnWriteArrayList<>();
+    private long sequence; // guarded by stateLock
+    private volatile boolean running = true;
+
+    // One connected standby
+    private final class Follower implements Runnable {
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(MAX_QUEUED_RECORDS);
+        private volatile boolean closed;
+
+        Follower(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                while (running && !closed) {
+                    byte[] record = queue.poll(1, TimeUnit.SECONDS);
+                    if (record == null) {
+                        continue;
+                    }
+                    out.writeInt(record.length);
+                    out.write(record);
+                    // Keep writing while more records are ready, flush once the queue is drained
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Standby went away - it will resync from a snapshot when it reconnects
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            followers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    public ReplicationServer(int port, Object stateLock, WriteBehindFlusher.SnapshotSource source) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.stateLock = stateLock;
+        this.source = source;
+
+        Thread acceptThread = new Thread(this::acceptLoop, "goreserve-replication-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        System.out.println("✅ Replication server listening on port " + serverSocket.getLocalPort());
+    }
+
+    // Ship one commit to every standby - call while holding the state lock
+    public void publish(List<User> users, List<Ticket> tickets) {
+        if (followers.isEmpty()) {
+            return;
+        }
+        try {
+            byte[] record = ReplicationRecord.change(++sequence, users, tickets).toBytes();
+            for (Follower follower : followers) {
+                if (!follower.queue.offer(record)) {
+                    System.err.println("⚠️  Standby " + follower.socket.getRemoteSocketAddress() + " fell behind - disconnecting");
+                    follower.close();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  Error preparing replication record: " + e.getMessage());
+        }
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        for (Follower follower : followers) {
+            follower.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Follower follower = new Follower(socket);
+
+                // Snapshot and registration happen under the state lock,
+                // so the standby sees every commit after the snapshot exactly once
+                synchronized (stateLock) {
+                    follower.queue.add(ReplicationRecord.snapshot(sequence, source.snapshot()).toBytes());
+                    followers.add(follower);
+                }
+
+                Thread sender = new Thread(follower, "goreserve-replication-" + socket.getRemoteSocketAddress());
+                sender.setDaemon(true);
+                sender.start();
+                System.out.println("✅ Standby connected from " + socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("⚠️  Replication accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
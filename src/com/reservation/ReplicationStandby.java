@@ -0,0 +1,150 @@
+package com.reservation;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * ReplicationStandby - keeps a read-only ReservationSystem in sync with a primary
+ * Connects to the primary's ReplicationServer, loads the snapshot it sends and then
+ * applies every committed change as it arrives. If the connection drops it reconnects
+ * and resyncs. promote() turns the standby into a normal writable system (failover).
+ *
+ * Run as a second JVM: java com.reservation.ReplicationStandby localhost 7070 data-standby
+ */
+public class ReplicationStandby {
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final ReservationSystem system;
+    private final String host;
+    private final int port;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+    private volatile long appliedSequence;
+    private volatile boolean connected;
+    private final Thread thread;
+
+    public ReplicationStandby(ReservationSystem system, String host, int port) {
+        this.system = system;
+        this.host = host;
+        this.port = port;
+        system.setReadOnly(true);
+        this.thread = new Thread(this::run, "goreserve-standby");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Stop following the primary and accept writes
+    public void promote() {
+        stop();
+        system.promoteToPrimary();
+        System.out.println("✅ Standby promoted to primary (last applied change: " + appliedSequence + ")");
+    }
+
+    public void stop() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket(host, port);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()))) {
+                socket = s;
+                connected = true;
+                System.out.println("✅ Following primary at " + host + ":" + port);
+                while (running) {
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    ReplicationRecord record = ReplicationRecord.fromBytes(data);
+                    system.applyReplicationRecord(record);
+                    appliedSequence = record.getSequence();
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                if (running) {
+                    String reason = e instanceof EOFException ? "primary closed the connection" : e.getMessage();
+                    System.err.println("⚠️  Lost connection to primary (" + reason + "), retrying...");
+                }
+            } finally {
+                connected = false;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Small read-only console for the standby JVM
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        String dataDirectory = args.length > 2 ? args[2] : "data-standby";
+
+        ReservationSystem system = new ReservationSystem(dataDirectory, DurabilityMode.ASYNC);
+        ReplicationStandby standby = new ReplicationStandby(system, host, port);
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("Commands: search <source> <destination> | ticket <id> | status | promote | exit");
+        while (scanner.hasNextLine()) {
+            String[] parts = scanner.nextLine().trim().split("\\s+");
+            switch (parts[0].toLowerCase()) {
+                case "search":
+                    if (parts.length < 3) {
+                        System.out.println("Usage: search <source> <destination>");
+                        break;
+                    }
+                    List<Transport> results = system.searchTransports(parts[1], parts[2]);
+                    for (Transport transport : results) {
+                        System.out.println(transport);
+                    }
+                    System.out.println(results.size() + " transport(s) found");
+                    break;
+                case "ticket":
+                    Ticket ticket = parts.length > 1 ? system.getTicket(parts[1].toUpperCase()) : null;
+                    System.out.println(ticket != null ? ticket : "❌ Ticket not found!");
+                    break;
+                case "status":
+                    System.out.println((standby.isConnected() ? "Connected" : "Disconnected") +
+                        ", last applied change: " + standby.getAppliedSequence());
+                    system.viewStorageStatus();
+                    break;
+                case "promote":
+                    standby.promote();
+                    break;
+                case "exit":
+                    standby.stop();
+                    system.shutdown();
+                    return;
+                default:
+                    System.out.println("❌ Unknown command");
+            }
+        }
+        standby.stop();
+        system.shutdown();
+    }
+}
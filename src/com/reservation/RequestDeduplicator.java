@@ -0,0 +1,98 @@
+package com.reservation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestDeduplicator - remembers the result of recent client requests by request ID
+ * so a retried booking or cancellation gets the original answer instead of running twice.
+ *
+ * Entries live in two generations of ConcurrentHashMap (young and old). New requests go
+ * into young; when young is full or older than the time-to-live it becomes old and the
+ * previous old generation is dropped in one step. That bounds memory to maxEntries and
+ * expires entries without a cleanup thread, while lookups stay lock-free hash reads.
+ */
+public class RequestDeduplicator<V> {
+    private static final class Entry<V> {
+        final CompletableFuture<V> result;
+        final long createdNanos;
+
+        Entry(CompletableFuture<V> result, long createdNanos) {
+            this.result = result;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private final int generationCapacity;
+    private final long ttlNanos;
+
+    private volatile ConcurrentHashMap<String, Entry<V>> young = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, Entry<V>> old = new ConcurrentHashMap<>();
+    private volatile long youngCreatedNanos = System.nanoTime();
+
+    private final LongAdder duplicates = new LongAdder();
+
+    public RequestDeduplicator(int maxEntries, long ttlMillis) {
+        this.generationCapacity = Math.max(1, maxEntries / 2);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    // Register a request that is about to run
+    // Returns the earlier request's (possibly still running) result if this ID was seen
+    // recently, or null if the caller should run it and complete the pending future
+    public CompletableFuture<V> begin(String requestId, CompletableFuture<V> pending) {
+        long now = System.nanoTime();
+        rotateIfNeeded(now);
+
+        Entry<V> mine = new Entry<>(pending, now);
+        ConcurrentHashMap<String, Entry<V>> currentYoung = young; // read young before old
+        Entry<V> earlier = currentYoung.putIfAbsent(requestId, mine);
+        if (earlier != null && isExpired(earlier, now) && currentYoung.replace(requestId, earlier, mine)) {
+            earlier = null;
+        }
+        if (earlier == null) {
+            Entry<V> older = old.get(requestId);
+            // older == mine if a rotation moved our own entry to the old generation
+            if (older == null || older == mine || isExpired(older, now)) {
+                return null;
+            }
+            currentYoung.remove(requestId, mine);
+            earlier = older;
+        }
+        duplicates.increment();
+        return earlier.result;
+    }
+
+    // Forget a request that failed with an exception so a retry runs it again
+    public void abandon(String requestId, CompletableFuture<V> pending) {
+        young.computeIfPresent(requestId, (id, entry) -> entry.result == pending ? null : entry);
+        old.computeIfPresent(requestId, (id, entry) -> entry.result == pending ? null : entry);
+    }
+
+    public int size() {
+        return young.size() + old.size();
+    }
+
+    // How many requests were answered from the cache
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.createdNanos > ttlNanos;
+    }
+
+    private void rotateIfNeeded(long now) {
+        if (young.size() < generationCapacity && now - youngCreatedNanos < ttlNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (young.size() >= generationCapacity || now - youngCreatedNanos >= ttlNanos) {
+                old = young;
+                young = new ConcurrentHashMap<>();
+                youngCreatedNanos = now;
+            }
+        }
+    }
+}
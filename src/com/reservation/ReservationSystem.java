@@ -1,7 +1,12 @@
 package com.reservation;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * ReservationSystem - Core business logic class
@@ -10,21 +15,70 @@ import java.util.*;
 public class ReservationSystem {
     // Collections for storing data
     private Map<String, Transport> transports; // transportId -> Transport
-    private Map<String, User> users; // userId -> User
+    private final TransportTable transportTable = new TransportTable(); // columns + seat maps of this system's transports
+    private ScheduleIndex schedule; // route -> transports sorted by departure time / fare
+    private UserDirectory users; // userId -> User, plus email/phone indexes
     private List<Ticket> tickets; // All tickets
+    private Map<String, Ticket> ticketsById; // ticketId -> Ticket
+    private Map<String, Waitlist> waitlists; // transportId -> Waitlist
+    private long nextWaitlistPosition = 1; // queue order for waitlist joins, guarded by this
     
-    // File paths for persistence
-    private static final String TICKETS_FILE = "data/tickets.dat";
-    private static final String USERS_FILE = "data/users.dat";
-    private static final String TRANSPORTS_FILE = "data/transports.dat";
+    // Files for persistence (stored inside the data directory)
+    private static final String DEFAULT_DATA_DIRECTORY = "data";
+    private static final String TICKETS_FILE = "tickets.dat";
+    private static final String USERS_FILE = "users.dat";
     
-    private int ticketCounter;
+    private final String dataDirectory;
+    private final DataStore dataStore;
+    
+    // Write-behind settings (used in GROUP_COMMIT and ASYNC modes)
+    private static final long GROUP_COMMIT_MILLIS = 5;
+    private static final long MAX_PENDING_MUTATIONS = 10_000;
+    private final DurabilityMode durabilityMode;
+    private WriteBehindFlusher flusher; // null in SYNC mode
+    private static final long SAVE_FAILED = -1; // saveData() result when a SYNC write fails
+    private final List<Runnable> undoLog = new ArrayList<>(); // SYNC mode: undoes the operation being saved
+    
+    // Replication: changes made under the lock are collected and shipped on saveData()
+    private ReplicationServer replicationServer; // null unless this is a replicating primary
+    private volatile boolean readOnly; // true while running as a standby
+    private volatile boolean consoleOutput = true;
+    private final List<User> changedUsers = new ArrayList<>();
+    private final List<Ticket> changedTickets = new ArrayList<>();
+    
+    // Recent client request IDs, so retried requests aren't applied twice
+    private static final int MAX_TRACKED_REQUESTS = 100_000;
+    private static final long REQUEST_TTL_MILLIS = 10 * 60 * 1000;
+    private final RequestDeduplicator<Ticket> bookingRequests =
+        new RequestDeduplicator<>(MAX_TRACKED_REQUESTS, REQUEST_TTL_MILLIS);
+    private final RequestDeduplicator<Boolean> cancellationRequests =
+        new RequestDeduplicator<>(MAX_TRACKED_REQUESTS, REQUEST_TTL_MILLIS);
+    
+    // ID allocators (block size lets concurrent callers avoid contending on one counter)
+    private static final int ID_BLOCK_SIZE = 16;
+    private final IdAllocator userIds = new IdAllocator("USER", 4, 1, ID_BLOCK_SIZE);
+    private final IdAllocator ticketIds = new IdAllocator("TKT", 6, 1000, ID_BLOCK_SIZE);
     
     public ReservationSystem() {
-        transports = new HashMap<>();
-        users = new HashMap<>();
+        this(DEFAULT_DATA_DIRECTORY);
+    }
+    
+    // Durability mode can be chosen per deployment with -Dgoreserve.durability=SYNC|GROUP_COMMIT|ASYNC
+    public ReservationSystem(String dataDirectory) {
+        this(dataDirectory, DurabilityMode.valueOf(
+            System.getProperty("goreserve.durability", DurabilityMode.SYNC.name()).toUpperCase()));
+    }
+    
+    public ReservationSystem(String dataDirectory, DurabilityMode durabilityMode) {
+        this.dataDirectory = dataDirectory;
+        this.dataStore = new DataStore(dataDirectory);
+        this.durabilityMode = durabilityMode;
+        transports = new ConcurrentHashMap<>();
+        schedule = new ScheduleIndex();
+        users = new UserDirectory();
         tickets = new ArrayList<>();
-        ticketCounter = 1000;
+        ticketsById = new HashMap<>();
+        waitlists = new HashMap<>();
         
         // Create data directory if it doesn't exist
         createDataDirectory();
@@ -34,11 +88,16 @@ public class ReservationSystem {
         
         // Load data from files
         loadData();
+        
+        if (durabilityMode != DurabilityMode.SYNC) {
+            flusher = new WriteBehindFlusher(dataStore, this, this::snapshot,
+                durabilityMode, GROUP_COMMIT_MILLIS, MAX_PENDING_MUTATIONS);
+        }
     }
     
     // Create data directory
     private void createDataDirectory() {
-        File dataDir = new File("data");
+        File dataDir = new File(dataDirectory);
         if (!dataDir.exists()) {
             if (dataDir.mkdirs()) {
                 System.out.println("✅ Created data directory for file storage");
@@ -49,29 +108,81 @@ public class ReservationSystem {
     // Initialize sample transports
     private void initializeSampleData() {
         // Add sample buses
-        Transport bus1 = new Bus("BUS001", "Mumbai", "Pune", 40, 500.0, "AC");
-        Transport bus2 = new Bus("BUS002", "Delhi", "Jaipur", 35, 600.0, "Sleeper");
-        Transport bus3 = new Bus("BUS003", "Bangalore", "Chennai", 45, 550.0, "Non-AC");
+        Transport bus1 = new Bus(transportTable, "BUS001", "Mumbai", "Pune", 40, 500.0, "AC",
+            LocalTime.of(7, 0), LocalTime.of(10, 30));
+        Transport bus2 = new Bus(transportTable, "BUS002", "Delhi", "Jaipur", 35, 600.0, "Sleeper",
+            LocalTime.of(22, 0), LocalTime.of(4, 30));
+        Transport bus3 = new Bus(transportTable, "BUS003", "Bangalore", "Chennai", 45, 550.0, "Non-AC",
+            LocalTime.of(21, 15), LocalTime.of(5, 0));
         
         // Add sample trains
-        Transport train1 = new Train("TRN001", "Mumbai", "Delhi", 72, 800.0, "3A");
-        Transport train2 = new Train("TRN002", "Kolkata", "Chennai", 80, 900.0, "2A");
-        Transport train3 = new Train("TRN003", "Bangalore", "Hyderabad", 60, 700.0, "SL");
+        Transport train1 = new Train(transportTable, "TRN001", "Mumbai", "Delhi", 72, 800.0, "3A",
+            LocalTime.of(16, 35), LocalTime.of(8, 35));
+        Transport train2 = new Train(transportTable, "TRN002", "Kolkata", "Chennai", 80, 900.0, "2A",
+            LocalTime.of(14, 50), LocalTime.of(19, 40));
+        Transport train3 = new Train(transportTable, "TRN003", "Bangalore", "Hyderabad", 60, 700.0, "SL",
+            LocalTime.of(18, 20), LocalTime.of(5, 50));
         
-        transports.put(bus1.getTransportId(), bus1);
-        transports.put(bus2.getTransportId(), bus2);
-        transports.put(bus3.getTransportId(), bus3);
-        transports.put(train1.getTransportId(), train1);
-        transports.put(train2.getTransportId(), train2);
-        transports.put(train3.getTransportId(), train3);
+        addTransport(bus1);
+        addTransport(bus2);
+        addTransport(bus3);
+        addTransport(train1);
+        addTransport(train2);
+        addTransport(train3);
     }
     
-    // Register a new user
+    // Table that transports for this system should be created in (new Bus(getTransportTable(), ...))
+    public TransportTable getTransportTable() {
+        return transportTable;
+    }
+    
+    // Add a transport to the system and the schedule index
+    // Returns false for a transport created outside this system's table, so bulk scans
+    // over the table always cover every transport
+    public boolean addTransport(Transport transport) {
+        if (transport.getTable() != transportTable) {
+            message("❌ " + transport.getTransportId() + " must be created in this system's transport table!");
+            return false;
+        }
+        transports.put(transport.getTransportId(), transport);
+        schedule.add(transport);
+        return true;
+    }
+    
+    // Register a new user - returns null if the email or phone is already registered
     public User registerUser(String name, String email, String phone) {
-        String userId = "USER" + String.format("%04d", users.size() + 1);
+        if (rejectIfReadOnly()) {
+            return null;
+        }
+        
+        if (users.isEmailTaken(email)) {
+            message("❌ Email is already registered!");
+            return null;
+        }
+        if (users.isPhoneTaken(phone)) {
+            message("❌ Phone number is already registered!");
+            return null;
+        }
+        
+        String userId = userIds.nextId();
         User user = new User(userId, name, email, phone);
-        users.put(userId, user);
-        saveData();
+        long sequence;
+        synchronized (this) {
+            if (!users.add(user)) {
+                // Lost a race with a concurrent registration for the same email/phone
+                message("❌ Email or phone number is already registered!");
+                return null;
+            }
+            changedUsers.add(user);
+            if (flusher == null) {
+                undoLog.add(() -> users.remove(user));
+            }
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                return null;
+            }
+        }
+        awaitDurability(sequence);
         return user;
     }
     
@@ -80,16 +191,44 @@ public class ReservationSystem {
         return users.get(userId);
     }
     
-    // Search transports by source and destination
-    public List<Transport> searchTransports(String source, String destination) {
-        List<Transport> result = new ArrayList<>();
-        for (Transport transport : transports.values()) {
-            if (transport.getSource().equalsIgnoreCase(source) && 
-                transport.getDestination().equalsIgnoreCase(destination)) {
-                result.add(transport);
-            }
+    // Get user by email (case-insensitive)
+    public User findUserByEmail(String email) {
+        return users.findByEmail(email);
+    }
+    
+    // Get user by phone (only digits are compared)
+    public User findUserByPhone(String phone) {
+        return users.findByPhone(phone);
+    }
+    
+    // Get user by ID, email or phone - used for login
+    // Only phone-shaped input is tried as a phone, so a mistyped ID or email that happens
+    // to contain digits can't match someone else's number
+    public User findUser(String idEmailOrPhone) {
+        User user = users.get(idEmailOrPhone.trim().toUpperCase());
+        if (user == null) {
+            user = users.findByEmail(idEmailOrPhone);
+        }
+        if (user == null && UserDirectory.isPhoneNumber(idEmailOrPhone.trim())) {
+            user = users.findByPhone(idEmailOrPhone);
         }
-        return result;
+        return user;
+    }
+    
+    // Search transports by source and destination (sorted by departure time)
+    public List<Transport> searchTransports(String source, String destination) {
+        return schedule.findRoute(source, destination);
+    }
+    
+    // Search transports departing within a time window (wraps past midnight if from > to)
+    public List<Transport> searchTransports(String source, String destination, LocalTime from, LocalTime to,
+                                            ScheduleIndex.SortOrder order) {
+        return schedule.findDepartures(source, destination, from, to, order);
+    }
+    
+    // Next few departures on a route at or after the given time
+    public List<Transport> getNextDepartures(String source, String destination, LocalTime after, int count) {
+        return schedule.nextDepartures(source, destination, after, count);
     }
     
     // Get all available transports
@@ -98,74 +237,473 @@ public class ReservationSystem {
     }
     
     // Book a ticket
+    // The seat itself is claimed lock-free (compare-and-set on the transport's seat map);
+    // only recording the ticket takes the system lock
     public Ticket bookTicket(String userId, String transportId, int seatNumber) {
+        if (rejectIfReadOnly()) {
+            return null;
+        }
+        
         User user = users.get(userId);
         Transport transport = transports.get(transportId);
         
         if (user == null) {
-            System.out.println("❌ User not found!");
+            message("❌ User not found!");
             return null;
         }
         
         if (transport == null) {
-            System.out.println("❌ Transport not found!");
+            message("❌ Transport not found!");
             return null;
         }
         
         if (!transport.isSeatAvailable(seatNumber)) {
-            System.out.println("❌ Seat " + seatNumber + " is not available!");
+            message("❌ Seat " + seatNumber + " is not available!");
+            if (transport.getAvailableSeatCount() == 0) {
+                message("💡 " + transportId + " is full - you can join the waitlist.");
+            }
             return null;
         }
         
-        // Book the seat
+        // Book the seat - fails if another booking claimed it since the check above
         if (transport.bookSeat(seatNumber)) {
-            double price = transport.calculatePrice(seatNumber);
-            String ticketId = "TKT" + String.format("%06d", ticketCounter++);
-            
-            Ticket ticket = new Ticket(
-                ticketId,
+            List<Ticket> booked = recordTickets(userId, transport, new int[] {seatNumber});
+            if (booked == null) {
+                return null;
+            }
+            message("✅ Ticket booked successfully!");
+            return booked.get(0);
+        }
+        
+        message("❌ Seat " + seatNumber + " was just booked by someone else!");
+        return null;
+    }
+    
+    // Book a ticket with a client request ID - a retry with the same ID returns the
+    // original ticket (or failure) instead of booking again
+    public Ticket bookTicket(String requestId, String userId, String transportId, int seatNumber) {
+        return deduplicate(bookingRequests, requestId, () -> bookTicket(userId, transportId, seatNumber));
+    }
+    
+    // Book the best available seat matching a preference (window, lower berth, ...)
+    public Ticket bookBestSeat(String userId, String transportId, SeatPreference preference) {
+        if (rejectIfReadOnly()) {
+            return null;
+        }
+        
+        Transport transport = findTransportForBooking(userId, transportId);
+        if (transport == null) {
+            return null;
+        }
+        
+        // Another booking may claim the chosen seat first - just look again
+        int seatNumber;
+        while ((seatNumber = transport.findAvailableSeat(preference)) > 0) {
+            if (transport.bookSeat(seatNumber)) {
+                List<Ticket> booked = recordTickets(userId, transport, new int[] {seatNumber});
+                if (booked == null) {
+                    return null;
+                }
+                message("✅ Ticket booked successfully! Seat " + seatNumber + " assigned.");
+                return booked.get(0);
+            }
+        }
+        
+        message("❌ No " + preference.name().replace('_', ' ').toLowerCase() + " seats available!");
+        return null;
+    }
+    
+    // Book count adjacent seats for a group - returns an empty list if no such block is free
+    public List<Ticket> bookSeatsTogether(String userId, String transportId, int count) {
+        if (rejectIfReadOnly()) {
+            return new ArrayList<>();
+        }
+        
+        Transport transport = findTransportForBooking(userId, transportId);
+        if (transport == null) {
+            return new ArrayList<>();
+        }
+        
+        int firstSeat;
+        while ((firstSeat = transport.findAdjacentSeats(count)) > 0) {
+            int[] seats = new int[count];
+            int claimed = 0;
+            while (claimed < count && transport.bookSeat(firstSeat + claimed)) {
+                seats[claimed] = firstSeat + claimed;
+                claimed++;
+            }
+            if (claimed == count) {
+                List<Ticket> booked = recordTickets(userId, transport, seats);
+                if (booked == null) {
+                    return new ArrayList<>();
+                }
+                message("✅ " + count + " seats booked together: " + firstSeat + "-" + (firstSeat + count - 1));
+                return booked;
+            }
+            // Lost part of the block to another booking - give back what we took and retry
+            // A passenger may have joined the waitlist while we held these seats, so they
+            // go back under the lock through the waitlist, like cancelled seats
+            if (claimed > 0) {
+                List<Integer> taken = new ArrayList<>(claimed);
+                for (int i = 0; i < claimed; i++) {
+                    taken.add(seats[i]);
+                }
+                long sequence;
+                synchronized (this) {
+                    sequence = returnClaimedSeats(transport, taken);
+                }
+                awaitDurability(sequence);
+            }
+        }
+        
+        message("❌ No " + count + " adjacent seats available!");
+        return new ArrayList<>();
+    }
+    
+    // Look up the transport for a booking, printing why if it can't go ahead
+    private Transport findTransportForBooking(String userId, String transportId) {
+        if (users.get(userId) == null) {
+            message("❌ User not found!");
+            return null;
+        }
+        Transport transport = transports.get(transportId);
+        if (transport == null) {
+            message("❌ Transport not found!");
+        }
+        return transport;
+    }
+    
+    // Create and save tickets for seats the caller has already claimed
+    // Returns null (with the seats given back) if the tickets could not be saved
+    private List<Ticket> recordTickets(String userId, Transport transport, int[] seatNumbers) {
+        List<Ticket> booked = new ArrayList<>(seatNumbers.length);
+        for (int seatNumber : seatNumbers) {
+            booked.add(new Ticket(
+                ticketIds.nextId(),
                 userId,
-                transportId,
+                transport.getTransportId(),
                 transport.getTransportType(),
                 seatNumber,
                 transport.getSource(),
                 transport.getDestination(),
-                price
-            );
-            
-            tickets.add(ticket);
-            saveData();
-            
-            System.out.println("✅ Ticket booked successfully!");
-            return ticket;
+                transport.calculatePrice(seatNumber)
+            ));
         }
         
-        return null;
+        long sequence;
+        synchronized (this) {
+            for (Ticket ticket : booked) {
+                addTicket(ticket);
+            }
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                List<Integer> seats = new ArrayList<>(seatNumbers.length);
+                for (int seatNumber : seatNumbers) {
+                    seats.add(seatNumber);
+                }
+                sequence = returnClaimedSeats(transport, seats);
+                booked = null;
+            }
+        }
+        awaitDurability(sequence);
+        return booked;
     }
     
-    // Cancel a ticket
+    // Join the waitlist of a full transport - the ticket gets RAC or WL status
+    public Ticket joinWaitlist(String userId, String transportId) {
+        if (rejectIfReadOnly()) {
+            return null;
+        }
+        
+        Ticket ticket;
+        long sequence;
+        synchronized (this) {
+            ticket = addToWaitlist(userId, transportId);
+            if (ticket == null) {
+                return null;
+            }
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                return null;
+            }
+        }
+        awaitDurability(sequence);
+        
+        message("✅ Added to waitlist with status " + ticket.getStatus() + "!");
+        return ticket;
+    }
+    
+    // Validate and create a waitlist ticket (caller holds the lock)
+    private Ticket addToWaitlist(String userId, String transportId) {
+        User user = users.get(userId);
+        Transport transport = transports.get(transportId);
+        
+        if (user == null) {
+            message("❌ User not found!");
+            return null;
+        }
+        
+        if (transport == null) {
+            message("❌ Transport not found!");
+            return null;
+        }
+        
+        if (transport.getAvailableSeatCount() > 0) {
+            message("❌ Seats are still available - please book one directly!");
+            return null;
+        }
+        
+        // Seat and price are assigned when the ticket is promoted
+        Ticket ticket = new Ticket(
+            ticketIds.nextId(),
+            userId,
+            transportId,
+            transport.getTransportType(),
+            0,
+            transport.getSource(),
+            transport.getDestination(),
+            0.0
+        );
+        
+        ticket.setWaitlistPosition(nextWaitlistPosition++);
+        getWaitlist(transport).add(ticket);
+        addTicket(ticket);
+        return ticket;
+    }
+    
+    // Cancel a ticket - a freed seat goes to the next waitlisted passenger
     public boolean cancelTicket(String ticketId) {
-        for (Ticket ticket : tickets) {
-            if (ticket.getTicketId().equals(ticketId) && 
-                ticket.getStatus().equals("CONFIRMED")) {
-                
-                // Release the seat
-                Transport transport = transports.get(ticket.getTransportId());
-                if (transport != null) {
-                    transport.cancelSeat(ticket.getSeatNumber());
-                    ticket.setStatus("CANCELLED");
-                    saveData();
-                    System.out.println("✅ Ticket cancelled successfully!");
-                    return true;
+        if (rejectIfReadOnly()) {
+            return false;
+        }
+        
+        long sequence;
+        synchronized (this) {
+            Ticket ticket = ticketsById.get(ticketId);
+            Map<Transport, List<Integer>> freedSeats = new LinkedHashMap<>();
+            if (ticket == null || !cancel(ticket, freedSeats)) {
+                message("❌ Ticket not found or already cancelled!");
+                return false;
+            }
+            Map<Transport, List<Integer>> unclaimed = reassignFreedSeats(freedSeats);
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                return false;
+            }
+            releaseSeats(unclaimed);
+        }
+        awaitDurability(sequence);
+        message("✅ Ticket cancelled successfully!");
+        return true;
+    }
+    
+    // Cancel a ticket with a client request ID - a retry returns the original outcome
+    // (named apart from cancelTicket so a request ID can't be mistaken for a user ID)
+    public boolean cancelTicketOnce(String requestId, String ticketId) {
+        return deduplicate(cancellationRequests, requestId, () -> cancelTicket(ticketId));
+    }
+    
+    // Run a request once per request ID; retries (even concurrent ones) get the first result
+    private <V> V deduplicate(RequestDeduplicator<V> requests, String requestId, Supplier<V> action) {
+        if (requestId == null) {
+            return action.get();
+        }
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> earlier = requests.begin(requestId, pending);
+        if (earlier != null) {
+            message("↩️  Duplicate request " + requestId + " - returning the original result");
+            return earlier.join();
+        }
+        try {
+            V result = action.get();
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Always complete the future, or retries of this ID would wait on it forever
+            requests.abandon(requestId, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    // Cancel many tickets at once (e.g. a breakdown) with a single save; each
+    // transport's waitlist is promoted once for all the seats freed on it
+    // Returns the number of tickets actually cancelled
+    public int cancelTickets(List<String> ticketIdsToCancel) {
+        if (rejectIfReadOnly()) {
+            return 0;
+        }
+        
+        int cancelled = 0;
+        long sequence = 0;
+        synchronized (this) {
+            Map<Transport, List<Integer>> freedSeats = new LinkedHashMap<>();
+            for (String ticketId : ticketIdsToCancel) {
+                Ticket ticket = ticketsById.get(ticketId);
+                if (ticket != null && cancel(ticket, freedSeats)) {
+                    cancelled++;
                 }
             }
+            Map<Transport, List<Integer>> unclaimed = reassignFreedSeats(freedSeats);
+            if (cancelled > 0) {
+                sequence = saveData();
+                if (sequence == SAVE_FAILED) {
+                    return 0;
+                }
+            }
+            releaseSeats(unclaimed);
         }
-        System.out.println("❌ Ticket not found or already cancelled!");
-        return false;
+        awaitDurability(sequence);
+        message("✅ Cancelled " + cancelled + " of " + ticketIdsToCancel.size() + " tickets.");
+        return cancelled;
+    }
+    
+    // Cancel one ticket in memory (caller holds the lock)
+    // A confirmed ticket's seat stays taken and is added to freedSeats for reassignFreedSeats()
+    private boolean cancel(Ticket ticket, Map<Transport, List<Integer>> freedSeats) {
+        Transport transport = transports.get(ticket.getTransportId());
+        if (transport == null) {
+            return false;
+        }
+        
+        String status = ticket.getStatus();
+        if (status.equals("RAC") || status.equals("WL")) {
+            rememberTicket(ticket);
+            getWaitlist(transport).remove(ticket, changedTickets);
+            ticket.setStatus("CANCELLED");
+            changedTickets.add(ticket);
+            return true;
+        }
+        
+        if (!status.equals("CONFIRMED")) {
+            return false;
+        }
+        
+        rememberTicket(ticket);
+        ticket.setStatus("CANCELLED");
+        changedTickets.add(ticket);
+        freedSeats.computeIfAbsent(transport, t -> new ArrayList<>()).add(ticket.getSeatNumber());
+        return true;
+    }
+    
+    // Hand freed seats straight to waitlisted passengers so a concurrent booking can't
+    // grab them in between; returns the seats nobody is waiting for, which the caller
+    // releases once the change is saved (until then a rollback can still give them back)
+    private Map<Transport, List<Integer>> reassignFreedSeats(Map<Transport, List<Integer>> freedSeats) {
+        Map<Transport, List<Integer>> unclaimed = new LinkedHashMap<>();
+        for (Map.Entry<Transport, List<Integer>> entry : freedSeats.entrySet()) {
+            Transport transport = entry.getKey();
+            List<Integer> seats = entry.getValue();
+            Waitlist waitlist = waitlists.get(transport.getTransportId());
+            List<Ticket> promoted = waitlist == null ? new ArrayList<>() : waitlist.promote(seats.size(), changedTickets);
+            for (int i = 0; i < seats.size(); i++) {
+                int seatNumber = seats.get(i);
+                if (i >= promoted.size()) {
+                    unclaimed.computeIfAbsent(transport, t -> new ArrayList<>()).add(seatNumber);
+                    continue;
+                }
+                Ticket ticket = promoted.get(i);
+                rememberTicket(ticket);
+                ticket.setSeatNumber(seatNumber);
+                ticket.setPrice(transport.calculatePrice(seatNumber));
+                ticket.setStatus("CONFIRMED");
+                changedTickets.add(ticket);
+                message("🎉 Ticket " + ticket.getTicketId() + " confirmed from waitlist (seat " + seatNumber + ")");
+            }
+        }
+        return unclaimed;
+    }
+    
+    private static void releaseSeats(Map<Transport, List<Integer>> seats) {
+        for (Map.Entry<Transport, List<Integer>> entry : seats.entrySet()) {
+            for (int seatNumber : entry.getValue()) {
+                entry.getKey().cancelSeat(seatNumber);
+            }
+        }
+    }
+    
+    // Give back seats claimed for a booking that is not going ahead (caller holds the lock)
+    // Waitlisted passengers get them first, as with a cancellation; returns the sequence
+    // to pass to awaitDurability() if anyone was promoted
+    private long returnClaimedSeats(Transport transport, List<Integer> seats) {
+        Map<Transport, List<Integer>> claimed = Collections.singletonMap(transport, seats);
+        Map<Transport, List<Integer>> unclaimed = reassignFreedSeats(claimed);
+        long sequence = 0;
+        if (!changedTickets.isEmpty()) {
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                // The promotions were rolled back as well - nobody holds these seats now
+                releaseSeats(claimed);
+                return 0;
+            }
+        }
+        releaseSeats(unclaimed);
+        return sequence;
+    }
+    
+    private Waitlist getWaitlist(Transport transport) {
+        return waitlists.computeIfAbsent(transport.getTransportId(), id -> new Waitlist(transport.getRacQuota()));
+    }
+    
+    private void addTicket(Ticket ticket) {
+        tickets.add(ticket);
+        ticketsById.put(ticket.getTicketId(), ticket);
+        changedTickets.add(ticket);
+        if (flusher == null) {
+            undoLog.add(() -> tickets.remove(tickets.lastIndexOf(ticket))); // ticketsById/waitlists are rebuilt
+        }
+    }
+    
+    // SYNC mode: remember a ticket's status, seat and price before changing them
+    private void rememberTicket(Ticket ticket) {
+        if (flusher != null) {
+            return;
+        }
+        String status = ticket.getStatus();
+        int seatNumber = ticket.getSeatNumber();
+        double price = ticket.getPrice();
+        undoLog.add(() -> {
+            ticket.setStatus(status);
+            ticket.setSeatNumber(seatNumber);
+            ticket.setPrice(price);
+        });
+    }
+    
+    // Rebuild the ticket index and waitlists after loading tickets
+    private void rebuildTicketIndexes() {
+        ticketsById.clear();
+        waitlists.clear();
+        List<Ticket> waiting = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            ticketsById.put(ticket.getTicketId(), ticket);
+            nextWaitlistPosition = Math.max(nextWaitlistPosition, ticket.getWaitlistPosition() + 1);
+            if (ticket.getStatus().equals("RAC") || ticket.getStatus().equals("WL")) {
+                waiting.add(ticket);
+            }
+        }
+        waiting.sort(Waitlist.BOOKING_ORDER);
+        for (Ticket ticket : waiting) {
+            Transport transport = transports.get(ticket.getTransportId());
+            if (transport != null) {
+                getWaitlist(transport).add(ticket);
+            }
+        }
+    }
+    
+    // Whether a transport has no seats left (bookings must go to the waitlist)
+    public boolean isTransportFull(String transportId) {
+        Transport transport = transports.get(transportId);
+        return transport != null && transport.getAvailableSeatCount() == 0;
+    }
+    
+    // Number of passengers waiting for a transport
+    public synchronized int getWaitlistSize(String transportId) {
+        Waitlist waitlist = waitlists.get(transportId);
+        return waitlist == null ? 0 : waitlist.size();
     }
     
     // Get user's booking history
-    public List<Ticket> getUserBookings(String userId) {
+    public synchronized List<Ticket> getUserBookings(String userId) {
         List<Ticket> userTickets = new ArrayList<>();
         for (Ticket ticket : tickets) {
             if (ticket.getUserId().equals(userId)) {
@@ -176,13 +714,8 @@ public class ReservationSystem {
     }
     
     // Get ticket by ID
-    public Ticket getTicket(String ticketId) {
-        for (Ticket ticket : tickets) {
-            if (ticket.getTicketId().equals(ticketId)) {
-                return ticket;
-            }
-        }
-        return null;
+    public synchronized Ticket getTicket(String ticketId) {
+        return ticketsById.get(ticketId);
     }
     
     // View available seats for a transport
@@ -193,84 +726,387 @@ public class ReservationSystem {
             System.out.println("\n📋 Available Seats for " + transport.getTransportId() + ":");
             System.out.println("Total: " + availableSeats.size() + " seats available");
             System.out.println("Seats: " + availableSeats);
+            if (!availableSeats.isEmpty()) {
+                double[] fares = transport.quoteAllSeats();
+                double lowest = Double.MAX_VALUE;
+                double highest = 0;
+                for (int seatNumber : availableSeats) {
+                    lowest = Math.min(lowest, fares[seatNumber - 1]);
+                    highest = Math.max(highest, fares[seatNumber - 1]);
+                }
+                System.out.println("Fares: ₹" + String.format("%.2f", lowest) +
+                    (highest > lowest ? " - ₹" + String.format("%.2f", highest) : ""));
+            }
         } else {
             System.out.println("❌ Transport not found!");
         }
     }
     
-    // File I/O - Save data
-    @SuppressWarnings("unchecked")
-    private void saveData() {
+    // Show seat-map contention per transport (useful during flash sales)
+    public void viewContentionStats() {
+        System.out.println("\n📈 Seat Contention:");
+        List<Transport> all = new ArrayList<>(transports.values());
+        all.sort(Comparator.comparing(Transport::getTransportId));
+        for (Transport transport : all) {
+            System.out.println(transport.getTransportId() +
+                " - version: " + transport.getVersion() +
+                ", CAS retries: " + transport.getCasRetries() +
+                ", booking conflicts: " + transport.getBookingConflicts() +
+                ", read retries: " + transport.getReadRetries());
+        }
+        System.out.println("Retried requests answered from memory - bookings: " + bookingRequests.getDuplicateCount() +
+            ", cancellations: " + cancellationRequests.getDuplicateCount() +
+            " (" + (bookingRequests.size() + cancellationRequests.size()) + " request IDs remembered)");
+    }
+    
+    // Show seat occupancy per transport and overall, counted straight from the seat arena
+    public void viewOccupancyReport() {
+        List<Transport> all = new ArrayList<>(transports.values());
+        all.sort(Comparator.comparing(Transport::getTransportId));
+        int[] rows = new int[all.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = all.get(i).getRow();
+        }
+        int[] available = new int[rows.length];
+        transportTable.countAvailableSeats(rows, available); // every transport is a row of this table
+        
+        long totalSeats = 0;
+        long bookedSeats = 0;
+        System.out.println("\n📊 Occupancy:");
+        for (int i = 0; i < all.size(); i++) {
+            Transport transport = all.get(i);
+            int seats = transport.getTotalSeats();
+            int booked = seats - available[i];
+            totalSeats += seats;
+            bookedSeats += booked;
+            System.out.println(transport.getTransportId() + " - " + booked + "/" + seats + " booked (" +
+                String.format("%.1f", seats == 0 ? 0.0 : booked * 100.0 / seats) + "%)");
+        }
+        System.out.println("Overall - " + bookedSeats + "/" + totalSeats + " booked (" +
+            String.format("%.1f", totalSeats == 0 ? 0.0 : bookedSeats * 100.0 / totalSeats) + "%)");
+    }
+    
+    // Show where data is written and how far it has got
+    public void viewStorageStatus() {
+        System.out.println("\n💾 Storage:");
+        System.out.println("Data directory: " + dataDirectory + " (" + durabilityMode + " durability)");
+        System.out.println("Data generation: " + dataStore.getGeneration());
+        if (flusher != null) {
+            System.out.println("Background writes: " + flusher.getFlushCount() +
+                ", changes waiting to be written: " + flusher.getPendingMutations());
+        }
+        ReplicationServer server;
+        synchronized (this) {
+            server = replicationServer;
+        }
+        if (server != null) {
+            System.out.println("Replication: port " + server.getPort() + ", " +
+                server.getFollowerCount() + " standby(s) connected");
+        }
+    }
+    
+    // File I/O - Save all data as one atomic generation
+    // Callers hold the system lock so the files are consistent with each other.
+    // In SYNC mode the write happens right here; otherwise the change is handed to
+    // the background flusher and the returned sequence goes to awaitDurability().
+    // Returns SAVE_FAILED if a SYNC write fails - the operation's in-memory changes
+    // are rolled back and the caller must report failure
+    private long saveData() {
+        if (flusher != null) {
+            publishChanges();
+            return flusher.markDirty();
+        }
         try {
-            // Save tickets
-            ObjectOutputStream ticketsOut = new ObjectOutputStream(new FileOutputStream(TICKETS_FILE));
-            ticketsOut.writeObject(tickets);
-            ticketsOut.writeInt(ticketCounter);
-            ticketsOut.close();
-            
-            // Save users
-            ObjectOutputStream usersOut = new ObjectOutputStream(new FileOutputStream(USERS_FILE));
-            usersOut.writeObject(users);
-            usersOut.close();
-            
-            // Save transports (seat availability)
-            ObjectOutputStream transportsOut = new ObjectOutputStream(new FileOutputStream(TRANSPORTS_FILE));
-            Map<String, List<Integer>> seatData = new HashMap<>();
-            for (Map.Entry<String, Transport> entry : transports.entrySet()) {
-                seatData.put(entry.getKey(), entry.getValue().getAvailableSeats());
-            }
-            transportsOut.writeObject(seatData);
-            transportsOut.close();
-            
+            dataStore.commit(snapshot());
         } catch (IOException e) {
             System.err.println("⚠️  Error saving data: " + e.getMessage());
+            rollBack();
+            message("❌ Could not save the change - nothing was changed, please try again!");
+            return SAVE_FAILED;
+        }
+        undoLog.clear();
+        publishChanges();
+        return 0;
+    }
+    
+    // Ship the changes collected under the lock to standbys
+    private void publishChanges() {
+        if (replicationServer != null) {
+            replicationServer.publish(new ArrayList<>(changedUsers), new ArrayList<>(changedTickets));
+        }
+        changedUsers.clear();
+        changedTickets.clear();
+    }
+    
+    // Undo the in-memory changes of an operation whose SYNC write failed (caller holds the lock)
+    // Seats freed by the operation are still taken (they are released only after a successful
+    // save) and waitlists are rebuilt from the restored ticket statuses
+    private void rollBack() {
+        for (int i = undoLog.size() - 1; i >= 0; i--) {
+            undoLog.get(i).run();
+        }
+        undoLog.clear();
+        changedUsers.clear();
+        changedTickets.clear();
+        rebuildTicketIndexes();
+    }
+    
+    // Call after releasing the lock - waits as long as the durability mode requires
+    private void awaitDurability(long sequence) {
+        if (flusher != null && sequence > 0) {
+            flusher.awaitDurability(sequence);
+        }
+    }
+    
+    // Write any pending changes and stop the background flusher
+    public void shutdown() {
+        if (replicationServer != null) {
+            replicationServer.close();
+        }
+        if (flusher != null) {
+            flusher.close();
+        }
+    }
+    
+    // Start streaming committed changes to standby instances on the given port
+    public synchronized void enableReplication(int port) throws IOException {
+        if (replicationServer == null) {
+            replicationServer = new ReplicationServer(port, this, this::snapshot);
+        }
+    }
+    
+    // Print a status message for the console user (suppressed when console output is off)
+    private void message(String text) {
+        if (consoleOutput) {
+            System.out.println(text);
+        }
+    }
+    
+    // Turn off per-operation messages, e.g. when driving the system from a load test
+    public void setConsoleOutput(boolean consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+    
+    public boolean isConsoleOutput() {
+        return consoleOutput;
+    }
+    
+    // Standbys only serve reads until promoted
+    private boolean rejectIfReadOnly() {
+        if (readOnly) {
+            message("❌ This is a read-only standby - please use the primary!");
+            return true;
+        }
+        return false;
+    }
+    
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+    
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    // Failover: rebuild waitlists from the replicated ticket statuses and accept writes
+    public synchronized void promoteToPrimary() {
+        rebuildTicketIndexes();
+        readOnly = false;
+    }
+    
+    // Apply a change shipped from the primary (standby side)
+    void applyReplicationRecord(ReplicationRecord record) throws IOException, ClassNotFoundException {
+        long sequence;
+        synchronized (this) {
+            if (record.getType() == ReplicationRecord.Type.SNAPSHOT) {
+                restore(record.getSnapshot());
+            } else {
+                for (User user : record.getUsers()) {
+                    users.add(user);
+                    userIds.advanceTo(userIds.parse(user.getUserId()) + 1);
+                }
+                for (Ticket ticket : record.getTickets()) {
+                    applyReplicatedTicket(ticket);
+                }
+            }
+            sequence = saveData();
+            if (sequence == SAVE_FAILED) {
+                // Reconnecting resyncs this standby from a fresh snapshot
+                throw new IOException("could not save the replicated change");
+            }
         }
+        awaitDurability(sequence);
+    }
+    
+    // Insert or update a replicated ticket and mirror its seat on the transport
+    private void applyReplicatedTicket(Ticket ticket) {
+        Ticket existing = ticketsById.get(ticket.getTicketId());
+        int previousSeat = 0;
+        if (existing == null) {
+            addTicket(ticket);
+            existing = ticket;
+        } else {
+            if (existing.getStatus().equals("CONFIRMED")) {
+                previousSeat = existing.getSeatNumber();
+            }
+            existing.setStatus(ticket.getStatus());
+            existing.setSeatNumber(ticket.getSeatNumber());
+            existing.setPrice(ticket.getPrice());
+        }
+        
+        int newSeat = existing.getStatus().equals("CONFIRMED") ? existing.getSeatNumber() : 0;
+        Transport transport = transports.get(existing.getTransportId());
+        if (transport != null && previousSeat != newSeat) {
+            if (previousSeat > 0) {
+                transport.cancelSeat(previousSeat);
+            }
+            if (newSeat > 0) {
+                transport.bookSeat(newSeat);
+            }
+        }
+        ticketIds.advanceTo(ticketIds.parse(existing.getTicketId()) + 1);
+    }
+    
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+    
+    // Serialize tickets and users into the data files
+    // Seat maps are not saved: they are rebuilt from the confirmed tickets on restore,
+    // because a seat claimed lock-free may not have its ticket recorded yet
+    private Map<String, byte[]> snapshot() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        
+        // Tickets
+        ByteArrayOutputStream ticketBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream ticketsOut = new ObjectOutputStream(ticketBytes)) {
+            ticketsOut.writeObject(tickets);
+            ticketsOut.writeLong(ticketIds.getHighWaterMark());
+        }
+        files.put(TICKETS_FILE, ticketBytes.toByteArray());
+        
+        // Users
+        ByteArrayOutputStream userBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream usersOut = new ObjectOutputStream(userBytes)) {
+            usersOut.writeObject(new HashMap<>(users.asMap()));
+            usersOut.writeLong(userIds.getHighWaterMark());
+        }
+        files.put(USERS_FILE, userBytes.toByteArray());
+        
+        return files;
     }
     
     // File I/O - Load data
-    @SuppressWarnings("unchecked")
+    // A damaged generation falls back to the previous one; if none is readable we
+    // stop rather than start fresh and overwrite the bookings on disk
     private void loadData() {
         try {
-            // Load tickets
-            File ticketsFile = new File(TICKETS_FILE);
-            if (ticketsFile.exists()) {
-                ObjectInputStream ticketsIn = new ObjectInputStream(new FileInputStream(ticketsFile));
-                tickets = (List<Ticket>) ticketsIn.readObject();
-                ticketCounter = ticketsIn.readInt();
-                ticketsIn.close();
-            }
-            
-            // Load users
-            File usersFile = new File(USERS_FILE);
-            if (usersFile.exists()) {
-                ObjectInputStream usersIn = new ObjectInputStream(new FileInputStream(usersFile));
-                users = (Map<String, User>) usersIn.readObject();
-                usersIn.close();
-            }
-            
-            // Load transports (seat availability)
-            File transportsFile = new File(TRANSPORTS_FILE);
-            if (transportsFile.exists()) {
-                ObjectInputStream transportsIn = new ObjectInputStream(new FileInputStream(transportsFile));
-                Map<String, List<Integer>> seatData = (Map<String, List<Integer>>) transportsIn.readObject();
-                for (Map.Entry<String, List<Integer>> entry : seatData.entrySet()) {
-                    Transport transport = transports.get(entry.getKey());
-                    if (transport != null) {
-                        transport.setAvailableSeats(entry.getValue());
-                    }
+            if (dataStore.load(this::restore)) {
+                System.out.println("✅ Data loaded successfully!");
+            } else {
+                loadLegacyData();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("❌ " + e.getMessage(), e);
+        }
+    }
+    
+    // Read the plain .dat files written before generations were introduced
+    // (an old transports.dat is ignored - seats come from the tickets)
+    private void loadLegacyData() {
+        Map<String, byte[]> files = new HashMap<>();
+        try {
+            for (String name : new String[] {TICKETS_FILE, USERS_FILE}) {
+                File file = new File(dataDirectory, name);
+                if (file.exists()) {
+                    files.put(name, Files.readAllBytes(file.toPath()));
                 }
-                transportsIn.close();
             }
-            
+            if (files.isEmpty()) {
+                System.out.println("📂 No previous data found. Starting fresh!");
+                return;
+            }
+            restore(files);
             System.out.println("✅ Data loaded successfully!");
-            
         } catch (IOException | ClassNotFoundException e) {
-            System.err.println("⚠️  No previous data found or error loading data. Starting fresh!");
+            // The old files are left untouched - new saves go to separate generation files
+            System.err.println("⚠️  Could not read old data files (" + e.getMessage() + "). Starting fresh!");
+        }
+    }
+    
+    // Replace in-memory state with the contents of the data files
+    // Everything is parsed before anything is applied, so a bad file changes nothing
+    @SuppressWarnings("unchecked")
+    private void restore(Map<String, byte[]> files) throws IOException, ClassNotFoundException {
+        List<Ticket> savedTickets = null;
+        long ticketMark = 0;
+        byte[] data = files.get(TICKETS_FILE);
+        if (data != null) {
+            try (ObjectInputStream ticketsIn = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                savedTickets = (List<Ticket>) ticketsIn.readObject();
+                try {
+                    ticketMark = ticketsIn.readLong();
+                } catch (EOFException e) {
+                    // Older files have no (or a 4-byte) high-water mark; the scan below covers them
+                }
+            }
+        }
+        
+        Map<String, User> savedUsers = null;
+        long userMark = 0;
+        data = files.get(USERS_FILE);
+        if (data != null) {
+            try (ObjectInputStream usersIn = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                savedUsers = (Map<String, User>) usersIn.readObject();
+                try {
+                    userMark = usersIn.readLong();
+                } catch (EOFException e) {
+                    // Older files have no high-water mark; the scan below covers them
+                }
+            }
+        }
+        
+        if (savedUsers != null) {
+            users.loadFrom(savedUsers);
+            userIds.advanceTo(userMark);
+            for (String userId : savedUsers.keySet()) {
+                userIds.advanceTo(userIds.parse(userId) + 1);
+            }
+        }
+        
+        if (savedTickets != null) {
+            tickets = savedTickets;
+            ticketIds.advanceTo(ticketMark);
+            for (Ticket ticket : tickets) {
+                ticketIds.advanceTo(ticketIds.parse(ticket.getTicketId()) + 1);
+            }
+            rebuildTicketIndexes();
+            rebuildSeatMaps();
+        }
+    }
+    
+    // Mark exactly the seats held by confirmed tickets as taken
+    private void rebuildSeatMaps() {
+        Map<String, Set<Integer>> takenSeats = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            if (ticket.getStatus().equals("CONFIRMED")) {
+                takenSeats.computeIfAbsent(ticket.getTransportId(), id -> new HashSet<>()).add(ticket.getSeatNumber());
+            }
+        }
+        for (Transport transport : transports.values()) {
+            Set<Integer> taken = takenSeats.getOrDefault(transport.getTransportId(), Collections.emptySet());
+            List<Integer> available = new ArrayList<>(transport.getTotalSeats() - taken.size());
+            for (int seatNumber = 1; seatNumber <= transport.getTotalSeats(); seatNumber++) {
+                if (!taken.contains(seatNumber)) {
+                    available.add(seatNumber);
+                }
+            }
+            transport.setAvailableSeats(available);
         }
     }
     
-    // Get all users
+    // Get all users (read-only view)
     public Map<String, User> getAllUsers() {
-        return users;
+        return users.asMap();
     }
 }
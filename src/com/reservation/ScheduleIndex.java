@@ -0,0 +1,190 @@
+package com.reservation;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ScheduleIndex - per-route index of transports sorted by departure time and by fare
+ * Each route keeps sorted parallel arrays (departure minute + transport), so a time-window
+ * query is a binary search followed by a walk over the k matches, already in time order.
+ * Routes are rebuilt copy-on-write when a transport is added, so reads never lock.
+ */
+public class ScheduleIndex {
+    public enum SortOrder { DEPARTURE_TIME, FARE }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Immutable snapshot of one route
+    private static final class Route {
+        final int[] departures; // minute of day, ascending
+        final Transport[] byTime; // same order as departures
+        final int[] fareOrderDepartures; // departure minute of each entry in byFare
+        final Transport[] byFare; // cheapest first
+        final Transport[] unscheduled; // no departure time
+
+        Route(List<Transport> transports) {
+            List<Transport> scheduled = new ArrayList<>();
+            List<Transport> other = new ArrayList<>();
+            for (Transport transport : transports) {
+                (transport.isScheduled() ? scheduled : other).add(transport);
+            }
+
+            byTime = scheduled.toArray(new Transport[0]);
+            Arrays.sort(byTime, Comparator.comparingInt(ScheduleIndex::minuteOf)
+                .thenComparing(Transport::getTransportId));
+            departures = new int[byTime.length];
+            for (int i = 0; i < byTime.length; i++) {
+                departures[i] = minuteOf(byTime[i]);
+            }
+
+            byFare = scheduled.toArray(new Transport[0]);
+            Arrays.sort(byFare, Comparator.comparingDouble(Transport::getStartingFare)
+                .thenComparingInt(ScheduleIndex::minuteOf));
+            fareOrderDepartures = new int[byFare.length];
+            for (int i = 0; i < byFare.length; i++) {
+                fareOrderDepartures[i] = minuteOf(byFare[i]);
+            }
+
+            unscheduled = other.toArray(new Transport[0]);
+        }
+
+        List<Transport> all() {
+            List<Transport> result = new ArrayList<>(byTime.length + unscheduled.length);
+            result.addAll(Arrays.asList(byTime));
+            result.addAll(Arrays.asList(unscheduled));
+            return result;
+        }
+    }
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Map<String, String> routeKeyById = new HashMap<>(); // transportId -> route key, guarded by this
+
+    // Add a transport to its route, replacing any transport with the same ID
+    // Rebuilds and re-sorts the route's arrays, so each add costs O(n log n) for n transports on it
+    public synchronized void add(Transport transport) {
+        String transportId = transport.getTransportId();
+        String key = routeKey(transport.getSource(), transport.getDestination());
+        String previousKey = routeKeyById.put(transportId, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            rebuildRoute(previousKey, transportId, null);
+        }
+        rebuildRoute(key, transportId, transport);
+    }
+
+    // Replace a route with a copy that drops removedId and adds added (if not null)
+    private void rebuildRoute(String key, String removedId, Transport added) {
+        Route current = routes.get(key);
+        List<Transport> transports = new ArrayList<>();
+        if (current != null) {
+            for (Transport existing : current.all()) {
+                if (!existing.getTransportId().equals(removedId)) {
+                    transports.add(existing);
+                }
+            }
+        }
+        if (added != null) {
+            transports.add(added);
+        }
+        if (transports.isEmpty()) {
+            routes.remove(key);
+        } else {
+            routes.put(key, new Route(transports));
+        }
+    }
+
+    // Every transport on a route, scheduled ones first in departure order
+    public List<Transport> findRoute(String source, String destination) {
+        Route route = routes.get(routeKey(source, destination));
+        return route == null ? new ArrayList<>() : route.all();
+    }
+
+    // Transports departing between from and to (inclusive); if from is after to the
+    // window wraps past midnight, e.g. 22:00-02:00
+    public List<Transport> findDepartures(String source, String destination,
+                                          LocalTime from, LocalTime to, SortOrder order) {
+        List<Transport> result = new ArrayList<>();
+        Route route = routes.get(routeKey(source, destination));
+        if (route == null) {
+            return result;
+        }
+        int start = toMinute(from);
+        int end = toMinute(to);
+
+        if (order == SortOrder.FARE) {
+            // Walk the fare-sorted array and keep departures inside the window
+            for (int i = 0; i < route.byFare.length; i++) {
+                if (inWindow(route.fareOrderDepartures[i], start, end)) {
+                    result.add(route.byFare[i]);
+                }
+            }
+            return result;
+        }
+
+        if (start <= end) {
+            addRange(route, start, end, result);
+        } else {
+            addRange(route, start, MINUTES_PER_DAY - 1, result);
+            addRange(route, 0, end, result);
+        }
+        return result;
+    }
+
+    // The next count departures at or after the given time, wrapping to the next day
+    public List<Transport> nextDepartures(String source, String destination, LocalTime after, int count) {
+        List<Transport> result = new ArrayList<>();
+        Route route = routes.get(routeKey(source, destination));
+        if (route == null || route.byTime.length == 0) {
+            return result;
+        }
+        int first = lowerBound(route.departures, toMinute(after));
+        int limit = Math.min(count, route.byTime.length);
+        for (int i = 0; i < limit; i++) {
+            result.add(route.byTime[(first + i) % route.byTime.length]);
+        }
+        return result;
+    }
+
+    private static void addRange(Route route, int startMinute, int endMinute, List<Transport> result) {
+        for (int i = lowerBound(route.departures, startMinute);
+             i < route.departures.length && route.departures[i] <= endMinute; i++) {
+            result.add(route.byTime[i]);
+        }
+    }
+
+    // First index whose departure is >= minute
+    private static int lowerBound(int[] departures, int minute) {
+        int low = 0;
+        int high = departures.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean inWindow(int minute, int start, int end) {
+        return start <= end ? minute >= start && minute <= end : minute >= start || minute <= end;
+    }
+
+    private static int minuteOf(Transport transport) {
+        return toMinute(transport.getDepartureTime());
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static String routeKey(String source, String destination) {
+        return source.trim().toLowerCase() + "|" + destination.trim().toLowerCase();
+    }
+}
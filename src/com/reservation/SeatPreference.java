@@ -0,0 +1,13 @@
+package com.reservation;
+
+/**
+ * Seat preferences for automatic seat selection
+ * Which seats match is decided by each transport type (see TransportTable.matchesPreference)
+ */
+public enum SeatPreference {
+    ANY,
+    WINDOW,      // buses: odd-numbered seats
+    AISLE,       // buses: even-numbered seats
+    LOWER_BERTH, // trains: berths 1-20
+    UPPER_BERTH  // trains: berths above 20
+}
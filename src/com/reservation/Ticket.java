@@ -20,7 +20,8 @@ public class Ticket implements Serializable {
     private String destination;
     private double price;
     private String bookingDate;
-    private String status; // CONFIRMED, CANCELLED
+    private String status; // CONFIRMED, CANCELLED, RAC, WL
+    private long waitlistPosition; // order of joining the waitlist (0 if never waitlisted)
     
     // Constructor
     public Ticket(String ticketId, String userId, String transportId, String transportType, 
@@ -118,6 +119,14 @@ public class Ticket implements Serializable {
         this.status = status;
     }
     
+    public long getWaitlistPosition() {
+        return waitlistPosition;
+    }
+    
+    public void setWaitlistPosition(long waitlistPosition) {
+        this.waitlistPosition = waitlistPosition;
+    }
+    
     @Override
     public String toString() {
         return "\n" +
@@ -128,7 +137,7 @@ public class Ticket implements Serializable {
                "Transport Type  : " + transportType + "\n" +
                "Transport ID    : " + transportId + "\n" +
                "Route           : " + source + " → " + destination + "\n" +
-               "Seat Number     : " + seatNumber + "\n" +
+               "Seat Number     : " + (seatNumber > 0 ? String.valueOf(seatNumber) : "Not assigned") + "\n" +
                "Price           : ₹" + String.format("%.2f", price) + "\n" +
                "Booking Date    : " + bookingDate + "\n" +
                "Status          : " + status + "\n" +
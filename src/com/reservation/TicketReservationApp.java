@@ -1,5 +1,8 @@
 package com.reservation;
 
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -17,6 +20,15 @@ public class TicketReservationApp {
         system = new ReservationSystem();
         scanner = new Scanner(System.in);
         
+        // Optional: stream changes to a standby (see ReplicationStandby)
+        if (args.length >= 2 && args[0].equals("--replication-port")) {
+            try {
+                system.enableReplication(Integer.parseInt(args[1]));
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("❌ Could not start replication: " + e.getMessage());
+            }
+        }
+        
         displayWelcome();
         
         // Main application loop
@@ -30,6 +42,7 @@ public class TicketReservationApp {
         }
         
         scanner.close();
+        system.shutdown();
         System.out.println("\n👋 Thank you for using GoReserve! Goodbye!");
     }
     
@@ -50,7 +63,7 @@ public class TicketReservationApp {
         System.out.println("           LOGIN MENU");
         System.out.println("═══════════════════════════════════════");
         System.out.println("1. Register New User");
-        System.out.println("2. Login with User ID");
+        System.out.println("2. Login with User ID / Email / Phone");
         System.out.println("3. Exit");
         System.out.println("═══════════════════════════════════════");
         System.out.print("Enter your choice: ");
@@ -86,8 +99,11 @@ public class TicketReservationApp {
         System.out.println("5. 📊 View My Bookings");
         System.out.println("6. 💺 View Available Seats");
         System.out.println("7. 👤 View My Profile");
-        System.out.println("8. 🚪 Logout");
-        System.out.println("9. 🔚 Exit");
+        System.out.println("8. 📈 View Seat Contention");
+        System.out.println("9. 🚦 View Occupancy Report");
+        System.out.println("10. 💾 View Storage Status");
+        System.out.println("11. 🚪 Logout");
+        System.out.println("12. 🔚 Exit");
         System.out.println("═══════════════════════════════════════");
         System.out.print("Enter your choice: ");
         
@@ -116,10 +132,19 @@ public class TicketReservationApp {
                 viewProfile();
                 break;
             case 8:
+                system.viewContentionStats();
+                break;
+            case 9:
+                system.viewOccupancyReport();
+                break;
+            case 10:
+                system.viewStorageStatus();
+                break;
+            case 11:
                 currentUser = null;
                 System.out.println("✅ Logged out successfully!");
                 break;
-            case 9:
+            case 12:
                 return false;
             default:
                 System.out.println("❌ Invalid choice! Please try again.");
@@ -141,6 +166,10 @@ public class TicketReservationApp {
         String phone = scanner.nextLine();
         
         User user = system.registerUser(name, email, phone);
+        if (user == null) {
+            System.out.println("💡 Try logging in with your email or phone instead.");
+            return;
+        }
         System.out.println("\n✅ Registration successful!");
         System.out.println("Your User ID: " + user.getUserId());
         System.out.println("Please remember this ID for login.");
@@ -150,10 +179,10 @@ public class TicketReservationApp {
     
     private static void loginUser() {
         System.out.println("\n─── Login ───");
-        System.out.print("Enter your User ID: ");
+        System.out.print("Enter your User ID, email or phone: ");
         String userId = scanner.nextLine();
         
-        User user = system.getUser(userId);
+        User user = system.findUser(userId);
         if (user != null) {
             currentUser = user;
             System.out.println("✅ Login successful! Welcome, " + user.getName());
@@ -188,7 +217,26 @@ public class TicketReservationApp {
         System.out.print("Enter destination city: ");
         String destination = scanner.nextLine();
         
-        List<Transport> results = system.searchTransports(source, destination);
+        System.out.print("Departure window, e.g. 18:00-23:00 (press Enter for any time): ");
+        String window = scanner.nextLine().trim();
+        
+        List<Transport> results;
+        if (window.isEmpty()) {
+            results = system.searchTransports(source, destination);
+        } else {
+            try {
+                String[] times = window.split("-");
+                LocalTime from = LocalTime.parse(times[0].trim());
+                LocalTime to = LocalTime.parse(times[1].trim());
+                System.out.print("Sort by 1. Departure time  2. Fare: ");
+                ScheduleIndex.SortOrder order = getIntInput() == 2
+                    ? ScheduleIndex.SortOrder.FARE : ScheduleIndex.SortOrder.DEPARTURE_TIME;
+                results = system.searchTransports(source, destination, from, to, order);
+            } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                System.out.println("❌ Invalid time window! Use HH:MM-HH:MM.");
+                return;
+            }
+        }
         
         if (results.isEmpty()) {
             System.out.println("\n❌ No transports found for the given route.");
@@ -221,14 +269,60 @@ public class TicketReservationApp {
         System.out.print("\nEnter Transport ID: ");
         String transportId = scanner.nextLine().toUpperCase();
         
-        System.out.print("Enter Seat Number: ");
+        System.out.print("Enter Seat Number (0 = choose for me): ");
         int seatNumber = getIntInput();
         
-        Ticket ticket = system.bookTicket(currentUser.getUserId(), transportId, seatNumber);
+        Ticket ticket;
+        if (seatNumber == 0) {
+            ticket = autoSelectSeat(transportId);
+        } else {
+            ticket = system.bookTicket(currentUser.getUserId(), transportId, seatNumber);
+        }
         
         if (ticket != null) {
             System.out.println(ticket);
+        } else if (system.isTransportFull(transportId)) {
+            System.out.print("Join the waitlist for " + transportId + "? (Y/N): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+                Ticket waitlisted = system.joinWaitlist(currentUser.getUserId(), transportId);
+                if (waitlisted != null) {
+                    System.out.println(waitlisted);
+                }
+            }
+        }
+    }
+    
+    // Let the system pick a seat by preference; returns the first ticket booked
+    private static Ticket autoSelectSeat(String transportId) {
+        System.out.println("1. Any seat");
+        System.out.println("2. Window seat (bus)");
+        System.out.println("3. Aisle seat (bus)");
+        System.out.println("4. Lower berth (train)");
+        System.out.println("5. Upper berth (train)");
+        System.out.println("6. Seats together");
+        System.out.print("Enter your preference: ");
+        
+        int choice = getIntInput();
+        SeatPreference[] preferences = {
+            SeatPreference.ANY, SeatPreference.WINDOW, SeatPreference.AISLE,
+            SeatPreference.LOWER_BERTH, SeatPreference.UPPER_BERTH
+        };
+        
+        if (choice == 6) {
+            System.out.print("How many seats? ");
+            int count = getIntInput();
+            List<Ticket> tickets = system.bookSeatsTogether(currentUser.getUserId(), transportId, count);
+            for (int i = 1; i < tickets.size(); i++) {
+                System.out.println(tickets.get(i));
+            }
+            return tickets.isEmpty() ? null : tickets.get(0);
         }
+        
+        if (choice < 1 || choice > preferences.length) {
+            System.out.println("❌ Invalid choice!");
+            return null;
+        }
+        return system.bookBestSeat(currentUser.getUserId(), transportId, preferences[choice - 1]);
     }
     
     private static void cancelTicket() {
@@ -276,9 +370,14 @@ public class TicketReservationApp {
             .filter(t -> t.getStatus().equals("CONFIRMED"))
             .count();
         
+        long waitlistedBookings = bookings.stream()
+            .filter(t -> t.getStatus().equals("RAC") || t.getStatus().equals("WL"))
+            .count();
+        
         System.out.println("\n📊 Booking Statistics:");
         System.out.println("Total Bookings: " + bookings.size());
         System.out.println("Active Bookings: " + confirmedBookings);
+        System.out.println("Waitlisted Bookings: " + waitlistedBookings);
     }
     
     private static int getIntInput() {
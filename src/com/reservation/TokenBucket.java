@@ -0,0 +1,50 @@
+package com.reservation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket - lock-free rate limiter (refills at a fixed rate, allows short bursts)
+ * Implemented as the generic cell rate algorithm: the whole bucket state is one
+ * "theoretical arrival time", updated with a single compare-and-set per request
+ */
+public class TokenBucket {
+    private final long intervalNanos; // time to earn one token
+    private final long burstNanos; // how far ahead of real time the bucket may run
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double tokensPerSecond, int burst) {
+        this(tokensPerSecond, burst, System.nanoTime());
+    }
+
+    // Starts full as of nowNanos - pass the same clock reading later given to tryAcquire
+    public TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.burstNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    // Take one token if available
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long base = Math.max(arrival, nowNanos);
+            if (base - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Give back a token from tryAcquire when the request was turned away by a later check
+    // (if the bucket has refilled meanwhile, the extra credit is capped by the burst limit)
+    public void release() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    // A full bucket carries no state, so it can be dropped and recreated later
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
@@ -0,0 +1,501 @@
+package com.reservation;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * TrafficSimulator - scriptable load test for ReservationSystem
+ * Builds synthetic transports and users, then replays mixed search/book/cancel traffic
+ * from many threads. Routes are picked with a Zipf distribution so a few routes are hot,
+ * and an optional flash-sale phase sends every thread after the same few transports.
+ * Every random choice comes from seeded generators, so runs with the same options repeat.
+ * Without --data the run uses a temporary data directory that is deleted afterwards.
+ *
+ * Usage: java com.reservation.TrafficSimulator --threads=8 --operations=200000 --seed=42
+ * Options: seed, transports, users, cities, threads, operations, zipf, search, book, cancel,
+ *          flash-sale-operations, flash-sale-transports, durability, data,
+ *          admission (route calls through an AdmissionController), user-rate, user-burst,
+ *          transport-rate, transport-burst, max-concurrent
+ */
+public class TrafficSimulator {
+    private static final String[] OPERATIONS = {"search", "book", "cancel", "flash-sale"};
+    private static final int SEARCH = 0;
+    private static final int BOOK = 1;
+    private static final int CANCEL = 2;
+    private static final int FLASH_SALE = 3;
+
+    // Run settings
+    private final long seed;
+    private final int transportCount;
+    private final int userCount;
+    private final int cityCount;
+    private final int threads;
+    private final int operations;
+    private final double zipfExponent;
+    private final int searchWeight;
+    private final int bookWeight;
+    private final int cancelWeight;
+    private final int flashSaleOperations;
+    private final int flashSaleTransports;
+    private final DurabilityMode durabilityMode;
+    private final String dataDirectory;
+    private final boolean admission;
+    private final double userRate;
+    private final int userBurst;
+    private final double transportRate;
+    private final int transportBurst;
+    private final int maxConcurrent;
+
+    private ReservationSystem system;
+    private AdmissionController admissionController; // null unless --admission=true
+    private final List<String[]> routes = new ArrayList<>(); // {source, destination}, hottest first
+    private final List<List<Transport>> routeTransports = new ArrayList<>();
+    private final List<String> userIds = new ArrayList<>();
+    private final LongAdder failedBookings = new LongAdder();
+    private final LongAdder failedCancellations = new LongAdder();
+
+    // Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    // Per-thread results, merged after the run
+    private static final class WorkerResult {
+        final long[][] latencies = new long[OPERATIONS.length][];
+        final int[] counts = new int[OPERATIONS.length];
+        long allocatedBytes;
+
+        WorkerResult(int capacity) {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                latencies[i] = new long[capacity];
+            }
+        }
+
+        void record(int operation, long nanos) {
+            latencies[operation][counts[operation]++] = nanos;
+        }
+    }
+
+    public TrafficSimulator(Map<String, String> options) {
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        transportCount = Integer.parseInt(options.getOrDefault("transports", "1000"));
+        userCount = Integer.parseInt(options.getOrDefault("users", "10000"));
+        cityCount = Integer.parseInt(options.getOrDefault("cities", "40"));
+        threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        operations = Integer.parseInt(options.getOrDefault("operations", "200000"));
+        zipfExponent = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+        searchWeight = Integer.parseInt(options.getOrDefault("search", "70"));
+        bookWeight = Integer.parseInt(options.getOrDefault("book", "25"));
+        cancelWeight = Integer.parseInt(options.getOrDefault("cancel", "5"));
+        flashSaleOperations = Integer.parseInt(options.getOrDefault("flash-sale-operations", "20000"));
+        flashSaleTransports = Integer.parseInt(options.getOrDefault("flash-sale-transports", "3"));
+        durabilityMode = DurabilityMode.valueOf(options.getOrDefault("durability", "ASYNC").toUpperCase());
+        dataDirectory = options.get("data");
+        admission = Boolean.parseBoolean(options.getOrDefault("admission", "false"));
+        userRate = Double.parseDouble(options.getOrDefault("user-rate", "100"));
+        userBurst = Integer.parseInt(options.getOrDefault("user-burst", "20"));
+        transportRate = Double.parseDouble(options.getOrDefault("transport-rate", "5000"));
+        transportBurst = Integer.parseInt(options.getOrDefault("transport-burst", "100"));
+        maxConcurrent = Integer.parseInt(options.getOrDefault("max-concurrent", "64"));
+
+        requireAtLeast("threads", threads, 1);
+        requireAtLeast("users", userCount, 1);
+        requireAtLeast("transports", transportCount, 1);
+        requireAtLeast("cities", cityCount, 2);
+        requireAtLeast("flash-sale-transports", flashSaleTransports, 1);
+        requireAtLeast("operations", operations, 0);
+        requireAtLeast("flash-sale-operations", flashSaleOperations, 0);
+        if (searchWeight < 0 || bookWeight < 0 || cancelWeight < 0 || searchWeight + bookWeight + cancelWeight == 0) {
+            throw new IllegalArgumentException("--search, --book and --cancel must not be negative and must not all be 0");
+        }
+    }
+
+    private static void requireAtLeast(String option, int value, int minimum) {
+        if (value < minimum) {
+            throw new IllegalArgumentException("--" + option + " must be at least " + minimum + " (got " + value + ")");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.out.println("❌ Options look like --threads=8 (got " + arg + ")");
+                return;
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        TrafficSimulator simulator;
+        try {
+            simulator = new TrafficSimulator(options);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+        simulator.run();
+    }
+
+    // Throws if a worker thread failed - no report is printed from partial results
+    public void run() throws IOException, InterruptedException {
+        boolean temporary = dataDirectory == null;
+        String directory = temporary ? Files.createTempDirectory("goreserve-sim-").toString() : dataDirectory;
+        System.out.println("🚦 Traffic simulation (seed " + seed + ", " + threads + " threads, " +
+            durabilityMode + " durability, data in " + directory + ")");
+
+        List<WorkerResult> all = new ArrayList<>();
+        GcStats gc;
+        long casRetries;
+        try {
+            system = new ReservationSystem(directory, durabilityMode);
+            system.setConsoleOutput(false);
+            if (admission) {
+                admissionController = new AdmissionController(system, userRate, userBurst,
+                    transportRate, transportBurst, maxConcurrent, Math.max(1000, userCount + transportCount));
+            }
+
+            long setupStart = System.nanoTime();
+            createTransports(new Random(seed));
+            createUsers();
+            if (userIds.isEmpty()) {
+                throw new IllegalStateException("No simulation users could be registered");
+            }
+            System.out.printf("Setup: %d transports on %d routes, %d users in %.1f s%n",
+                transportCount, routes.size(), userIds.size(), (System.nanoTime() - setupStart) / 1e9);
+
+            GcStats gcBefore = GcStats.capture();
+            long totalCasRetriesBefore = totalCasRetries();
+
+            all.addAll(runPhase(operations, false));
+            if (flashSaleOperations > 0) {
+                all.addAll(runPhase(flashSaleOperations, true));
+            }
+
+            gc = GcStats.capture().minus(gcBefore);
+            casRetries = totalCasRetries() - totalCasRetriesBefore;
+        } finally {
+            if (system != null) {
+                system.shutdown();
+            }
+            if (temporary) {
+                deleteDirectory(Paths.get(directory));
+            }
+        }
+        report(all, gc, casRetries);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.forEach(paths::add);
+        }
+        // Children before their parent directories
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            Files.deleteIfExists(paths.get(i));
+        }
+    }
+
+    // Spread transports over city pairs; route 0 is the hottest under the Zipf distribution
+    private void createTransports(Random random) {
+        List<String> cities = new ArrayList<>();
+        for (int i = 1; i <= cityCount; i++) {
+            cities.add(String.format("City%03d", i));
+        }
+        int routeCount = Math.max(1, Math.min(transportCount / 10, cityCount * (cityCount - 1)));
+        Set<String> seen = new HashSet<>();
+        while (routes.size() < routeCount) {
+            String source = cities.get(random.nextInt(cities.size()));
+            String destination = cities.get(random.nextInt(cities.size()));
+            if (!source.equals(destination) && seen.add(source + "|" + destination)) {
+                routes.add(new String[] {source, destination});
+                routeTransports.add(new ArrayList<>());
+            }
+        }
+
+        String[] busTypes = {"AC", "Non-AC", "Sleeper"};
+        String[] trainClasses = {"1A", "2A", "3A", "SL"};
+        for (int i = 0; i < transportCount; i++) {
+            int route = i % routes.size();
+            String[] cityPair = routes.get(route);
+            LocalTime departure = LocalTime.of(random.nextInt(24), random.nextInt(12) * 5);
+            LocalTime arrival = departure.plusMinutes(60 + random.nextInt(720));
+            double basePrice = 200 + random.nextInt(800);
+            Transport transport = random.nextBoolean()
+                ? new Bus(system.getTransportTable(), String.format("SIMB%05d", i), cityPair[0], cityPair[1],
+                    30 + random.nextInt(20), basePrice, busTypes[random.nextInt(busTypes.length)], departure, arrival)
+                : new Train(system.getTransportTable(), String.format("SIMT%05d", i), cityPair[0], cityPair[1],
+                    60 + random.nextInt(940), basePrice, trainClasses[random.nextInt(trainClasses.length)],
+                    departure, arrival);
+            system.addTransport(transport);
+            routeTransports.get(route).add(transport);
+        }
+    }
+
+    // Users from an earlier run in the same --data directory are reused
+    private void createUsers() {
+        for (int i = 0; i < userCount; i++) {
+            String email = "sim-user-" + i + "-" + seed + "@example.com";
+            User user = system.findUserByEmail(email);
+            if (user == null) {
+                user = system.registerUser("Sim User " + i, email, "");
+            }
+            if (user != null) {
+                userIds.add(user.getUserId());
+            }
+        }
+    }
+
+    // Run one phase on all threads at once and wait for it to finish
+    private List<WorkerResult> runPhase(int phaseOperations, boolean flashSale) throws InterruptedException {
+        ZipfSampler zipf = new ZipfSampler(routes.size(), zipfExponent);
+        int perThread = phaseOperations / threads;
+        List<WorkerResult> results = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int t = 0; t < threads; t++) {
+            WorkerResult result = new WorkerResult(perThread);
+            results.add(result);
+            Random random = new Random(seed * 31 + t + (flashSale ? 1_000_003 : 0));
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long allocatedBefore = allocatedBytes();
+                if (flashSale) {
+                    runFlashSale(random, perThread, result);
+                } else {
+                    runMixed(random, zipf, perThread, result);
+                }
+                result.allocatedBytes = allocatedBytes() - allocatedBefore;
+            }, "sim-worker-" + t);
+            worker.setUncaughtExceptionHandler((thread, e) -> failure.compareAndSet(null, e));
+            workers.add(worker);
+            worker.start();
+        }
+
+        long phaseStart = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("A simulation worker failed: " + failure.get(), failure.get());
+        }
+        double seconds = (System.nanoTime() - phaseStart) / 1e9;
+        System.out.printf("%s phase: %,d operations in %.2f s (%,.0f ops/s)%n",
+            flashSale ? "Flash-sale" : "Mixed", perThread * threads, seconds, perThread * threads / seconds);
+        return results;
+    }
+
+    private void runMixed(Random random, ZipfSampler zipf, int count, WorkerResult result) {
+        List<Ticket> myTickets = new ArrayList<>();
+        int totalWeight = searchWeight + bookWeight + cancelWeight;
+        for (int i = 0; i < count; i++) {
+            int route = zipf.sample(random);
+            int pick = random.nextInt(totalWeight);
+            long begin = System.nanoTime();
+
+            if (pick < searchWeight) {
+                String[] cityPair = routes.get(route);
+                LocalTime from = LocalTime.of(random.nextInt(24), 0);
+                String userId = userIds.get(random.nextInt(userIds.size()));
+                search(userId, cityPair[0], cityPair[1], from, from.plusHours(4));
+                result.record(SEARCH, System.nanoTime() - begin);
+            } else if (pick < searchWeight + bookWeight || myTickets.isEmpty()) {
+                List<Transport> candidates = routeTransports.get(route);
+                Transport transport = candidates.get(random.nextInt(candidates.size()));
+                String userId = userIds.get(random.nextInt(userIds.size()));
+                Ticket ticket = random.nextBoolean()
+                    ? book(userId, transport.getTransportId(), 1 + random.nextInt(transport.getTotalSeats()))
+                    : bookBestSeat(userId, transport.getTransportId());
+                result.record(BOOK, System.nanoTime() - begin);
+                if (ticket == null) {
+                    failedBookings.increment();
+                } else {
+                    myTickets.add(ticket);
+                }
+            } else {
+                int index = random.nextInt(myTickets.size());
+                Ticket ticket = myTickets.get(index);
+                myTickets.set(index, myTickets.get(myTickets.size() - 1));
+                myTickets.remove(myTickets.size() - 1);
+                if (!cancel(ticket.getUserId(), ticket.getTicketId())) {
+                    failedCancellations.increment();
+                }
+                result.record(CANCEL, System.nanoTime() - begin);
+            }
+        }
+    }
+
+    // Every thread books the same few transports of the hottest route as fast as it can
+    private void runFlashSale(Random random, int count, WorkerResult result) {
+        List<Transport> hot = routeTransports.get(0);
+        int hotCount = Math.min(flashSaleTransports, hot.size());
+        for (int i = 0; i < count; i++) {
+            Transport transport = hot.get(random.nextInt(hotCount));
+            String userId = userIds.get(random.nextInt(userIds.size()));
+            long begin = System.nanoTime();
+            Ticket ticket = bookBestSeat(userId, transport.getTransportId());
+            result.record(FLASH_SALE, System.nanoTime() - begin);
+            if (ticket == null) {
+                failedBookings.increment();
+            }
+        }
+    }
+
+    // Calls go through the admission controller when one is configured
+    private void search(String userId, String source, String destination, LocalTime from, LocalTime to) {
+        if (admissionController != null) {
+            admissionController.searchTransports(userId, source, destination, from, to, ScheduleIndex.SortOrder.DEPARTURE_TIME);
+        } else {
+            system.searchTransports(source, destination, from, to, ScheduleIndex.SortOrder.DEPARTURE_TIME);
+        }
+    }
+
+    private Ticket book(String userId, String transportId, int seatNumber) {
+        return admissionController != null
+            ? admissionController.bookTicket(userId, transportId, seatNumber)
+            : system.bookTicket(userId, transportId, seatNumber);
+    }
+
+    private Ticket bookBestSeat(String userId, String transportId) {
+        return admissionController != null
+            ? admissionController.bookBestSeat(userId, transportId, SeatPreference.ANY)
+            : system.bookBestSeat(userId, transportId, SeatPreference.ANY);
+    }
+
+    private boolean cancel(String userId, String ticketId) {
+        return admissionController != null
+            ? admissionController.cancelTicket(userId, ticketId)
+            : system.cancelTicket(ticketId);
+    }
+
+    private void report(List<WorkerResult> results, GcStats gc, long casRetries) {
+        System.out.println("\n📊 Results");
+        System.out.println("─────────────────────────────────────────────────────────────────────────");
+        System.out.printf("%-11s %10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+
+        long totalBookings = 0;
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            int total = 0;
+            for (WorkerResult result : results) {
+                total += result.counts[op];
+            }
+            if (total == 0) {
+                continue;
+            }
+            long[] merged = new long[total];
+            int position = 0;
+            for (WorkerResult result : results) {
+                System.arraycopy(result.latencies[op], 0, merged, position, result.counts[op]);
+                position += result.counts[op];
+            }
+            Arrays.sort(merged);
+            if (op == BOOK || op == FLASH_SALE) {
+                totalBookings += total;
+            }
+            System.out.printf("%-11s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", OPERATIONS[op], total,
+                percentile(merged, 50), percentile(merged, 90), percentile(merged, 99),
+                percentile(merged, 99.9), merged[merged.length - 1] / 1000.0);
+        }
+        System.out.println("─────────────────────────────────────────────────────────────────────────");
+
+        long allocated = 0;
+        for (WorkerResult result : results) {
+            allocated += result.allocatedBytes;
+        }
+        System.out.printf("Failed bookings (seat taken / sold out / rejected): %d of %d (%.1f%%)%n",
+            failedBookings.sum(), totalBookings, totalBookings == 0 ? 0.0 : 100.0 * failedBookings.sum() / totalBookings);
+        System.out.println("Failed cancellations: " + failedCancellations.sum());
+        System.out.println("Seat-map CAS retries: " + casRetries);
+        if (admissionController != null) {
+            System.out.printf("Admission: %d admitted, rejected %d by user limit, %d by transport limit, " +
+                "%d by concurrency limit, %d with the limiter table full%n",
+                admissionController.getAdmittedCount(), admissionController.getRejectedByUserCount(),
+                admissionController.getRejectedByTransportCount(), admissionController.getRejectedByConcurrencyCount(),
+                admissionController.getRejectedUntrackedCount());
+        }
+        System.out.printf("GC: %d collections, %d ms%n", gc.count, gc.millis);
+        System.out.printf("Allocated by workers: %,d MB%n", allocated / (1024 * 1024));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+    }
+
+    private long totalCasRetries() {
+        long total = 0;
+        for (Transport transport : system.getAllTransports()) {
+            total += transport.getCasRetries();
+        }
+        return total;
+    }
+
+    // Bytes allocated so far by the current thread, or 0 if the JVM can't tell
+    private static long allocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static final class GcStats {
+        final long count;
+        final long millis;
+
+        GcStats(long count, long millis) {
+            this.count = count;
+            this.millis = millis;
+        }
+
+        static GcStats capture() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            return new GcStats(count, millis);
+        }
+
+        GcStats minus(GcStats earlier) {
+            return new GcStats(count - earlier.count, millis - earlier.millis);
+        }
+    }
+}
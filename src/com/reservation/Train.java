@@ -1,59 +1,47 @@
 package com.reservation;
 
+import java.time.LocalTime;
+
 /**
  * Train class demonstrating Inheritance and Polymorphism
  * Extends the Transport abstract class
+ * Its data lives in a TransportTable row - fares are priced by the table
  */
 public class Train extends Transport {
-    private String trainClass; // 1A, 2A, 3A, SL, etc.
-    
+    // Deprecated: see the constructor below
+    @Deprecated
     public Train(String transportId, String source, String destination, int totalSeats, double basePrice, String trainClass) {
-        super(transportId, source, destination, totalSeats, basePrice);
-        this.trainClass = trainClass;
+        this(transportId, source, destination, totalSeats, basePrice, trainClass, null, null);
     }
     
-    @Override
-    public String getTransportType() {
-        return "TRAIN";
+    // Deprecated: created on its own, a train gets a one-row table of its own, and
+    // ReservationSystem.addTransport() rejects it - create it in getTransportTable() instead
+    @Deprecated
+    public Train(String transportId, String source, String destination, int totalSeats, double basePrice, String trainClass,
+                 LocalTime departureTime, LocalTime arrivalTime) {
+        this(new TransportTable(), transportId, source, destination, totalSeats, basePrice, trainClass,
+             departureTime, arrivalTime);
+    }
+    
+    // Create the train as a row of the given table (a system's table - see ReservationSystem.getTransportTable())
+    public Train(TransportTable table, String transportId, String source, String destination, int totalSeats,
+                 double basePrice, String trainClass, LocalTime departureTime, LocalTime arrivalTime) {
+        super(table, transportId, source, destination, totalSeats, basePrice, TransportTable.TYPE_TRAIN, trainClass,
+              departureTime, arrivalTime);
     }
     
+    // Trains give RAC status to the first 10% of waitlisted passengers
     @Override
-    public double calculatePrice(int seatNumber) {
-        // Different pricing logic for trains
-        double price = getBasePrice();
-        
-        // Lower berths (1-20) cost more
-        if (seatNumber <= 20) {
-            price += 100;
-        }
-        
-        // Class-based pricing
-        switch (trainClass.toUpperCase()) {
-            case "1A":
-                price += 500;
-                break;
-            case "2A":
-                price += 350;
-                break;
-            case "3A":
-                price += 200;
-                break;
-            case "SL":
-                price += 50;
-                break;
-            default:
-                break;
-        }
-        
-        return price;
+    public int getRacQuota() {
+        return getTotalSeats() / 10;
     }
     
     public String getTrainClass() {
-        return trainClass;
+        return getTable().getClassName(getRow());
     }
     
     @Override
     public String toString() {
-        return super.toString() + " [Class: " + trainClass + "]";
+        return super.toString() + " [Class: " + getTrainClass() + "]";
     }
 }
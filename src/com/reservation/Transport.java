@@ -1,95 +1,329 @@
 package com.reservation;
 
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Abstract class demonstrating Abstraction
  * This is the base class for all transport types
+ * A Transport's fields and seat bitmap live in one row of a TransportTable; pricing and
+ * type are read from the row, not overridden. The object itself still carries the
+ * per-transport concurrency state (version stamp, contention counters, preference
+ * bitmaps), which is written on the booking path and kept apart from other transports.
  */
 public abstract class Transport {
-    private String transportId;
-    private String source;
-    private String destination;
-    private int totalSeats;
-    private List<Integer> availableSeats;
-    private double basePrice;
-    
-    // Constructor
-    public Transport(String transportId, String source, String destination, int totalSeats, double basePrice) {
-        this.transportId = transportId;
-        this.source = source;
-        this.destination = destination;
+    private final TransportTable table;
+    private final int row;
+    private final int totalSeats; // copied from the row for the booking path
+    
+    // Seat map: one bit per seat (1 = available), 64 seats per word, stored in the
+    // table's seat arena at [seatOffset, seatOffset + seatWordCount)
+    // Bookings flip bits with compare-and-set, so no locks are taken
+    private final AtomicLongArray seatWords;
+    private final int seatOffset;
+    private final int seatWordCount;
+    private final AtomicLong version = new AtomicLong(); // bumped on every seat change
+    
+    // One bitmap per SeatPreference marking the seats that match it, built on first use
+    private volatile long[][] preferenceMasks;
+    
+    // Contention counters
+    private final LongAdder casRetries = new LongAdder(); // CAS lost to a concurrent change of the same word
+    private final LongAdder bookingConflicts = new LongAdder(); // seat was already taken
+    private final LongAdder readRetries = new LongAdder(); // snapshot read saw a concurrent change
+    
+    // Constructor - appends a row to the given table with every seat available
+    protected Transport(TransportTable table, String transportId, String source, String destination,
+                        int totalSeats, double basePrice, byte typeCode, String className,
+                        LocalTime departureTime, LocalTime arrivalTime) {
+        this.table = table;
+        this.row = table.addRow(transportId, source, destination, totalSeats, basePrice, typeCode, className,
+                                toMinute(departureTime), toMinute(arrivalTime));
         this.totalSeats = totalSeats;
-        this.basePrice = basePrice;
-        this.availableSeats = new ArrayList<>();
-        initializeSeats();
+        this.seatWords = table.getSeatWords(row);
+        this.seatOffset = table.getSeatOffset(row);
+        this.seatWordCount = TransportTable.wordCount(totalSeats);
     }
     
-    // Initialize all seats as available
-    private void initializeSeats() {
-        for (int i = 1; i <= totalSeats; i++) {
-            availableSeats.add(i);
-        }
+    // Schedules are kept to the minute
+    private static int toMinute(LocalTime time) {
+        return time == null ? TransportTable.NOT_SCHEDULED : time.getHour() * 60 + time.getMinute();
+    }
+    
+    private static LocalTime fromMinute(int minute) {
+        return minute == TransportTable.NOT_SCHEDULED ? null : LocalTime.of(minute / 60, minute % 60);
+    }
+    
+    // Price and type come straight from the table row - one implementation for every transport
+    public double calculatePrice(int seatNumber) {
+        return table.price(row, seatNumber);
+    }
+    
+    public String getTransportType() {
+        return table.getTypeCode(row) == TransportTable.TYPE_BUS ? "BUS" : "TRAIN";
     }
     
-    // Abstract methods - must be implemented by subclasses
-    public abstract double calculatePrice(int seatNumber);
-    public abstract String getTransportType();
+    // Whether a seat satisfies a preference (the rule lives in the table, next to pricing)
+    public boolean matchesPreference(int seatNumber, SeatPreference preference) {
+        return table.matchesPreference(row, seatNumber, preference);
+    }
     
     // Concrete method - common to all transports
     public boolean bookSeat(int seatNumber) {
-        if (availableSeats.contains(seatNumber)) {
-            availableSeats.remove(Integer.valueOf(seatNumber));
-            return true;
-        }
-        return false;
+        return updateSeat(seatNumber, false);
     }
     
     public boolean cancelSeat(int seatNumber) {
-        if (!availableSeats.contains(seatNumber) && seatNumber > 0 && seatNumber <= totalSeats) {
-            availableSeats.add(seatNumber);
-            return true;
-        }
-        return false;
+        return updateSeat(seatNumber, true);
     }
     
+    // Lock-free read of a single seat
     public boolean isSeatAvailable(int seatNumber) {
-        return availableSeats.contains(seatNumber);
+        if (seatNumber <= 0 || seatNumber > totalSeats) {
+            return false;
+        }
+        int bit = seatNumber - 1;
+        return (seatWords.get(seatOffset + (bit >>> 6)) & (1L << bit)) != 0;
+    }
+    
+    public int getAvailableSeatCount() {
+        while (true) {
+            long stamp = version.get();
+            int count = 0;
+            for (int i = 0; i < seatWordCount; i++) {
+                count += Long.bitCount(seatWords.get(seatOffset + i));
+            }
+            if (version.get() == stamp) {
+                return count;
+            }
+            readRetries.increment();
+        }
+    }
+    
+    // Lowest-numbered available seat matching the preference, or -1 if none
+    // Scans 64 seats per step by AND-ing the seat map with the preference bitmap
+    public int findAvailableSeat(SeatPreference preference) {
+        long[] mask = getPreferenceMask(preference);
+        for (int i = 0; i < seatWordCount; i++) {
+            long candidates = seatWords.get(seatOffset + i) & mask[i];
+            if (candidates != 0) {
+                return i * 64 + Long.numberOfTrailingZeros(candidates) + 1;
+            }
+        }
+        return -1;
+    }
+    
+    // First seat of the lowest run of count consecutive available seats, or -1 if none
+    // Jumps from run to run using whole-word bit tricks instead of checking seat by seat
+    public int findAdjacentSeats(int count) {
+        if (count <= 0 || count > totalSeats) {
+            return -1;
+        }
+        long[] snapshot = new long[seatWordCount];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = seatWords.get(seatOffset + i);
+        }
+        int start = nextBit(snapshot, 0, true);
+        while (start >= 0 && start + count <= totalSeats) {
+            int end = nextBit(snapshot, start, false); // first taken seat after the run
+            if (end < 0) {
+                end = totalSeats;
+            }
+            if (end - start >= count) {
+                return start + 1;
+            }
+            start = nextBit(snapshot, end, true);
+        }
+        return -1;
+    }
+    
+    // Index of the next set (or clear) bit at or after from, or -1
+    private int nextBit(long[] words, int from, boolean set) {
+        int index = from >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = (set ? words[index] : ~words[index]) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int bit = index * 64 + Long.numberOfTrailingZeros(word);
+                return bit < totalSeats ? bit : -1;
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = set ? words[index] : ~words[index];
+        }
+    }
+    
+    private long[] getPreferenceMask(SeatPreference preference) {
+        long[][] masks = preferenceMasks;
+        if (masks == null) {
+            // Racing threads build identical masks, so whichever write wins is fine
+            masks = new long[SeatPreference.values().length][];
+            for (SeatPreference p : SeatPreference.values()) {
+                long[] mask = new long[seatWordCount];
+                for (int seat = 1; seat <= totalSeats; seat++) {
+                    if (matchesPreference(seat, p)) {
+                        mask[(seat - 1) >>> 6] |= 1L << (seat - 1);
+                    }
+                }
+                masks[p.ordinal()] = mask;
+            }
+            preferenceMasks = masks;
+        }
+        return masks[preference.ordinal()];
+    }
+    
+    // Flip one seat bit with compare-and-set, retrying if another thread changed the same word
+    private boolean updateSeat(int seatNumber, boolean makeAvailable) {
+        if (seatNumber <= 0 || seatNumber > totalSeats) {
+            return false;
+        }
+        int bit = seatNumber - 1;
+        int index = seatOffset + (bit >>> 6);
+        long mask = 1L << bit;
+        while (true) {
+            long word = seatWords.get(index);
+            boolean available = (word & mask) != 0;
+            if (available == makeAvailable) {
+                if (!makeAvailable) {
+                    bookingConflicts.increment();
+                }
+                return false;
+            }
+            long updated = makeAvailable ? (word | mask) : (word & ~mask);
+            if (seatWords.compareAndSet(index, word, updated)) {
+                version.incrementAndGet();
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+    
+    // How many waitlisted passengers get RAC status - none by default
+    public int getRacQuota() {
+        return 0;
     }
     
     // Encapsulation - Getters and Setters
     public String getTransportId() {
-        return transportId;
+        return table.getId(row);
     }
     
     public String getSource() {
-        return source;
+        return table.getSource(row);
     }
     
     public String getDestination() {
-        return destination;
+        return table.getDestination(row);
     }
     
     public int getTotalSeats() {
         return totalSeats;
     }
     
+    // Consistent snapshot of available seats - retried if a booking lands mid-scan
     public List<Integer> getAvailableSeats() {
-        return new ArrayList<>(availableSeats); // Return copy to protect internal data
+        while (true) {
+            long stamp = version.get();
+            List<Integer> seats = new ArrayList<>();
+            for (int i = 0; i < seatWordCount; i++) {
+                long word = seatWords.get(seatOffset + i);
+                while (word != 0) {
+                    seats.add(i * 64 + Long.numberOfTrailingZeros(word) + 1);
+                    word &= word - 1;
+                }
+            }
+            if (version.get() == stamp) {
+                return seats;
+            }
+            readRetries.increment();
+        }
     }
     
     public double getBasePrice() {
-        return basePrice;
+        return table.getBasePrice(row);
+    }
+    
+    // Cheapest seat price - used to order search results by fare
+    public double getStartingFare() {
+        return table.startingFare(row);
+    }
+    
+    // Fare of every seat at once - fares[i] is the price of seat i + 1
+    public double[] quoteAllSeats() {
+        double[] fares = new double[totalSeats];
+        table.quoteSeats(row, fares);
+        return fares;
+    }
+    
+    public LocalTime getDepartureTime() {
+        return fromMinute(table.getDepartureMinute(row));
+    }
+    
+    public LocalTime getArrivalTime() {
+        return fromMinute(table.getArrivalMinute(row));
     }
     
+    public boolean isScheduled() {
+        return table.getDepartureMinute(row) != TransportTable.NOT_SCHEDULED;
+    }
+    
+    public TransportTable getTable() {
+        return table;
+    }
+    
+    public int getRow() {
+        return row;
+    }
+    
+    // Replace the whole seat map (used when loading saved data)
+    // Words are written in place since the arena is shared; the version bump tells
+    // optimistic readers to retry
     public void setAvailableSeats(List<Integer> seats) {
-        this.availableSeats = new ArrayList<>(seats);
+        long[] words = new long[seatWordCount];
+        for (int seatNumber : seats) {
+            if (seatNumber > 0 && seatNumber <= totalSeats) {
+                int bit = seatNumber - 1;
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        version.incrementAndGet();
+        for (int i = 0; i < words.length; i++) {
+            seatWords.set(seatOffset + i, words[i]);
+        }
+        version.incrementAndGet();
+    }
+    
+    // Version stamp - changes whenever any seat is booked or released
+    public long getVersion() {
+        return version.get();
+    }
+    
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+    
+    public long getBookingConflicts() {
+        return bookingConflicts.sum();
+    }
+    
+    public long getReadRetries() {
+        return readRetries.sum();
     }
     
     @Override
     public String toString() {
-        return getTransportType() + " [ID: " + transportId + ", " + source + " → " + destination + 
-               ", Available Seats: " + availableSeats.size() + "/" + totalSeats + "]";
+        LocalTime departureTime = getDepartureTime();
+        LocalTime arrivalTime = getArrivalTime();
+        String schedule = departureTime == null ? "" :
+            ", Departs: " + departureTime + (arrivalTime == null ? "" : ", Arrives: " + arrivalTime);
+        return getTransportType() + " [ID: " + getTransportId() + ", " + getSource() + " → " + getDestination() + schedule +
+               ", Available Seats: " + getAvailableSeatCount() + "/" + totalSeats + "]";
     }
 }
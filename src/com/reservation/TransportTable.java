@@ -0,0 +1,350 @@
+package com.reservation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TransportTable - column-oriented storage behind every Transport
+ * Each transport is one row: parallel primitive arrays hold its ID, route ID (an index
+ * into the dictionary of source/destination names), base price, type code, class code
+ * and schedule, and its seat bitmap lives in a shared arena of AtomicLongArray chunks
+ * (64 seats per word, each transport's words contiguous and padded so no two transports
+ * share a cache line).
+ * Bus and Train objects hold a row number (plus their own counters), and pricing is a plain
+ * function of the columns, so bulk work (quoting every seat, occupancy counts)
+ * is a tight loop over arrays instead of virtual calls on objects spread over the heap.
+ *
+ * Each ReservationSystem owns a table for its transports, so a table lives exactly as
+ * long as the system using it. Rows are appended under the table lock and never removed.
+ * Columns grow by copying, and a row is fully written before the Transport viewing it
+ * is handed out.
+ */
+public final class TransportTable {
+    public static final byte TYPE_BUS = 1;
+    public static final byte TYPE_TRAIN = 2;
+
+    public static final int NOT_SCHEDULED = -1; // departure/arrival column value without a schedule
+
+    private static final int FIRST_CHUNK_WORDS = 64; // chunks double from here...
+    private static final int CHUNK_WORDS = 1 << 16; // ...up to 64K words = 4M seats
+    private static final int INITIAL_ROWS = 16;
+    private static final int CACHE_LINE_WORDS = 8; // 64-byte cache lines
+
+    // All columns, replaced by a larger copy when full
+    private static final class Columns {
+        final String[] ids;
+        final int[] routeIds;
+        final double[] basePrices;
+        final byte[] typeCodes;
+        final short[] classCodes;
+        final int[] totalSeats;
+        final int[] departureMinutes;
+        final int[] arrivalMinutes;
+        final double[] classSurcharges; // pre-computed from type + class
+        final double[] premiumSurcharges; // window seat (bus) / lower berth (train)
+        final int[] seatChunks; // arena chunk holding the seat words
+        final int[] seatOffsets; // first seat word within the chunk
+
+        Columns(int capacity, Columns old, int rows) {
+            ids = new String[capacity];
+            routeIds = new int[capacity];
+            basePrices = new double[capacity];
+            typeCodes = new byte[capacity];
+            classCodes = new short[capacity];
+            totalSeats = new int[capacity];
+            departureMinutes = new int[capacity];
+            arrivalMinutes = new int[capacity];
+            classSurcharges = new double[capacity];
+            premiumSurcharges = new double[capacity];
+            seatChunks = new int[capacity];
+            seatOffsets = new int[capacity];
+            if (old != null) {
+                System.arraycopy(old.ids, 0, ids, 0, rows);
+                System.arraycopy(old.routeIds, 0, routeIds, 0, rows);
+                System.arraycopy(old.basePrices, 0, basePrices, 0, rows);
+                System.arraycopy(old.typeCodes, 0, typeCodes, 0, rows);
+                System.arraycopy(old.classCodes, 0, classCodes, 0, rows);
+                System.arraycopy(old.totalSeats, 0, totalSeats, 0, rows);
+                System.arraycopy(old.departureMinutes, 0, departureMinutes, 0, rows);
+                System.arraycopy(old.arrivalMinutes, 0, arrivalMinutes, 0, rows);
+                System.arraycopy(old.classSurcharges, 0, classSurcharges, 0, rows);
+                System.arraycopy(old.premiumSurcharges, 0, premiumSurcharges, 0, rows);
+                System.arraycopy(old.seatChunks, 0, seatChunks, 0, rows);
+                System.arraycopy(old.seatOffsets, 0, seatOffsets, 0, rows);
+            }
+        }
+    }
+
+    private volatile Columns columns = new Columns(INITIAL_ROWS, null, 0);
+    private volatile int rowCount;
+
+    // Dictionaries - route ID -> {source, destination}, class code -> class name
+    private volatile String[][] routes = new String[0][];
+    private volatile String[] classNames = new String[0];
+    private final Map<String, Integer> routeIndex = new HashMap<>(); // guarded by this
+    private final Map<String, Short> classIndex = new HashMap<>(); // guarded by this
+
+    // Seat arena
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+    private int chunkUsed; // words used in the last chunk, guarded by this
+
+    // Append a row with every seat available; returns its row number
+    public synchronized int addRow(String transportId, String source, String destination, int totalSeats,
+                                   double basePrice, byte typeCode, String className,
+                                   int departureMinute, int arrivalMinute) {
+        int row = rowCount;
+        Columns c = columns;
+        if (row == c.ids.length) {
+            c = new Columns(row * 2, c, row);
+            columns = c;
+        }
+        int words = wordCount(totalSeats);
+        int reserved = paddedWordCount(words);
+        int chunk = allocateSeatWords(reserved);
+        int offset = chunkUsed - reserved;
+        AtomicLongArray arena = chunks[chunk];
+        for (int i = 0; i < words; i++) {
+            arena.set(offset + i, fullWord(totalSeats, i));
+        }
+
+        c.ids[row] = transportId;
+        c.routeIds[row] = routeId(source, destination);
+        c.basePrices[row] = basePrice;
+        c.typeCodes[row] = typeCode;
+        c.classCodes[row] = classCode(className);
+        c.totalSeats[row] = totalSeats;
+        c.departureMinutes[row] = departureMinute;
+        c.arrivalMinutes[row] = arrivalMinute;
+        c.classSurcharges[row] = classSurcharge(typeCode, className);
+        c.premiumSurcharges[row] = premiumSurcharge(typeCode);
+        c.seatChunks[row] = chunk;
+        c.seatOffsets[row] = offset;
+        rowCount = row + 1; // publishes the row to scanners
+        return row;
+    }
+
+    // Each slice is followed by at least 7 unused words (rounded up to whole lines), so the
+    // last seat word of one transport and the first of the next are 64+ bytes apart and a
+    // CAS on one transport's seats never contends with a neighbour's cache line
+    private static int paddedWordCount(int words) {
+        return (words + 2 * CACHE_LINE_WORDS - 2) & -CACHE_LINE_WORDS;
+    }
+
+    // Reserve contiguous words in the last chunk, starting a new chunk if they do not fit
+    private int allocateSeatWords(int words) {
+        AtomicLongArray[] current = chunks;
+        if (current.length == 0 || chunkUsed + words > current[current.length - 1].length()) {
+            AtomicLongArray[] grown = new AtomicLongArray[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            int size = current.length == 0 ? FIRST_CHUNK_WORDS
+                : Math.min(CHUNK_WORDS, current[current.length - 1].length() * 2);
+            grown[current.length] = new AtomicLongArray(Math.max(size, words));
+            chunks = grown;
+            chunkUsed = 0;
+            current = grown;
+        }
+        chunkUsed += words;
+        return current.length - 1;
+    }
+
+    private int routeId(String source, String destination) {
+        String key = source + "\n" + destination;
+        Integer id = routeIndex.get(key);
+        if (id == null) {
+            String[][] current = routes;
+            String[][] grown = new String[current.length + 1][];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = new String[] {source, destination};
+            id = current.length;
+            routeIndex.put(key, id);
+            routes = grown;
+        }
+        return id;
+    }
+
+    private short classCode(String className) {
+        Short code = classIndex.get(className);
+        if (code == null) {
+            String[] current = classNames;
+            if (current.length > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many transport classes");
+            }
+            String[] grown = new String[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = className;
+            code = (short) current.length;
+            classIndex.put(className, code);
+            classNames = grown;
+        }
+        return code;
+    }
+
+    // Pricing rules - fare = base + class surcharge (+ premium surcharge on premium seats)
+    private static double classSurcharge(byte typeCode, String className) {
+        if (typeCode == TYPE_BUS) {
+            if (className.equalsIgnoreCase("AC")) {
+                return 200;
+            } else if (className.equalsIgnoreCase("Sleeper")) {
+                return 300;
+            }
+            return 0;
+        }
+        switch (className.toUpperCase()) {
+            case "1A":
+                return 500;
+            case "2A":
+                return 350;
+            case "3A":
+                return 200;
+            case "SL":
+                return 50;
+            default:
+                return 0;
+        }
+    }
+
+    private static double premiumSurcharge(byte typeCode) {
+        return typeCode == TYPE_BUS ? 50 : 100;
+    }
+
+    // The one premium-seat rule - window seats (odd numbers) on buses, lower berths
+    // (1-20) on trains; pricing, quotes and seat preferences all go through it
+    private static boolean isPremiumSeat(byte typeCode, int seatNumber) {
+        return typeCode == TYPE_BUS ? seatNumber % 2 != 0 : seatNumber <= 20;
+    }
+
+    public boolean isPremiumSeat(int row, int seatNumber) {
+        return isPremiumSeat(columns.typeCodes[row], seatNumber);
+    }
+
+    // Whether a seat satisfies a preference - window/aisle apply to buses,
+    // lower/upper berth to trains, and each pair splits seats by the premium rule
+    public boolean matchesPreference(int row, int seatNumber, SeatPreference preference) {
+        byte typeCode = columns.typeCodes[row];
+        boolean premium = isPremiumSeat(typeCode, seatNumber);
+        switch (preference) {
+            case WINDOW:
+                return typeCode == TYPE_BUS && premium;
+            case AISLE:
+                return typeCode == TYPE_BUS && !premium;
+            case LOWER_BERTH:
+                return typeCode == TYPE_TRAIN && premium;
+            case UPPER_BERTH:
+                return typeCode == TYPE_TRAIN && !premium;
+            default:
+                return true;
+        }
+    }
+
+    // Fare for one seat - no virtual calls, just column reads
+    public double price(int row, int seatNumber) {
+        Columns c = columns;
+        double price = c.basePrices[row] + c.classSurcharges[row];
+        return isPremiumSeat(c.typeCodes[row], seatNumber) ? price + c.premiumSurcharges[row] : price;
+    }
+
+    // Cheapest fare on the transport - the regular fare unless every seat is premium
+    public double startingFare(int row) {
+        Columns c = columns;
+        byte typeCode = c.typeCodes[row];
+        double price = c.basePrices[row] + c.classSurcharges[row];
+        for (int seat = 1; seat <= c.totalSeats[row]; seat++) {
+            if (!isPremiumSeat(typeCode, seat)) {
+                return price;
+            }
+        }
+        return c.totalSeats[row] == 0 ? price : price + c.premiumSurcharges[row];
+    }
+
+    // Fill fares[0..totalSeats-1] with the fare of seats 1..totalSeats
+    // Column reads are hoisted out of the loop, leaving a branch-light body over a
+    // primitive array that the JIT can unroll and vectorize
+    public void quoteSeats(int row, double[] fares) {
+        Columns c = columns;
+        byte typeCode = c.typeCodes[row];
+        int seats = Math.min(c.totalSeats[row], fares.length);
+        double regular = c.basePrices[row] + c.classSurcharges[row];
+        double premium = regular + c.premiumSurcharges[row];
+        for (int i = 0; i < seats; i++) {
+            fares[i] = isPremiumSeat(typeCode, i + 1) ? premium : regular;
+        }
+    }
+
+    // Available seats per row, by popcount over each row's slice of the arena
+    public void countAvailableSeats(int[] rows, int[] counts) {
+        Columns c = columns;
+        AtomicLongArray[] arena = chunks;
+        for (int r = 0; r < rows.length; r++) {
+            int row = rows[r];
+            AtomicLongArray words = arena[c.seatChunks[row]];
+            int offset = c.seatOffsets[row];
+            int end = offset + wordCount(c.totalSeats[row]);
+            int count = 0;
+            for (int i = offset; i < end; i++) {
+                count += Long.bitCount(words.get(i));
+            }
+            counts[r] = count;
+        }
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    // Column accessors for Transport views
+    public String getId(int row) {
+        return columns.ids[row];
+    }
+
+    public String getSource(int row) {
+        return routes[columns.routeIds[row]][0];
+    }
+
+    public String getDestination(int row) {
+        return routes[columns.routeIds[row]][1];
+    }
+
+    public double getBasePrice(int row) {
+        return columns.basePrices[row];
+    }
+
+    public byte getTypeCode(int row) {
+        return columns.typeCodes[row];
+    }
+
+    public String getClassName(int row) {
+        return classNames[columns.classCodes[row]];
+    }
+
+    public int getTotalSeats(int row) {
+        return columns.totalSeats[row];
+    }
+
+    public int getDepartureMinute(int row) {
+        return columns.departureMinutes[row];
+    }
+
+    public int getArrivalMinute(int row) {
+        return columns.arrivalMinutes[row];
+    }
+
+    // Seat words of a row live at [getSeatOffset(row), + wordCount(totalSeats)) in this array
+    public AtomicLongArray getSeatWords(int row) {
+        return chunks[columns.seatChunks[row]];
+    }
+
+    public int getSeatOffset(int row) {
+        return columns.seatOffsets[row];
+    }
+
+    public static int wordCount(int totalSeats) {
+        return (totalSeats + 63) >>> 6;
+    }
+
+    // Word i of a seat map with every seat available (bits past totalSeats stay clear)
+    public static long fullWord(int totalSeats, int i) {
+        int bits = totalSeats - i * 64;
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+}
@@ -0,0 +1,135 @@
+package com.reservation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserDirectory - stores users by ID with unique secondary indexes
+ * Email and phone are normalized and hashed so lookups never scan all users
+ */
+public class UserDirectory {
+    private static final int MIN_PHONE_DIGITS = 7; // shorter digit runs are IDs or typos, not phones
+
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>(); // normalized email -> User
+    private final Map<String, User> usersByPhone = new ConcurrentHashMap<>(); // normalized phone -> User
+
+    // Lowercase and trim so "A@Mail.com " and "a@mail.com" are the same account
+    public static String normalizeEmail(String email) {
+        if (email == null) {
+            return "";
+        }
+        return email.trim().toLowerCase();
+    }
+
+    // Keep digits only so "+91 98765-43210" and "919876543210" match
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    // Whether text looks like a phone number: only digits, spaces, '+' and '-', with enough digits
+    public static boolean isPhoneNumber(String text) {
+        if (text == null) {
+            return false;
+        }
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c != ' ' && c != '+' && c != '-') {
+                return false;
+            }
+        }
+        return digits >= MIN_PHONE_DIGITS;
+    }
+
+    // Add a user - returns false (and adds nothing) if the email or phone is already taken
+    public synchronized boolean add(User user) {
+        String email = normalizeEmail(user.getEmail());
+        String phone = normalizePhone(user.getPhone());
+
+        if (usersById.containsKey(user.getUserId())
+                || (!email.isEmpty() && usersByEmail.containsKey(email))
+                || (!phone.isEmpty() && usersByPhone.containsKey(phone))) {
+            return false;
+        }
+
+        usersById.put(user.getUserId(), user);
+        if (!email.isEmpty()) {
+            usersByEmail.put(email, user);
+        }
+        if (!phone.isEmpty()) {
+            usersByPhone.put(phone, user);
+        }
+        return true;
+    }
+
+    // Remove a user added by add() (used when the registration could not be saved)
+    public synchronized void remove(User user) {
+        usersById.remove(user.getUserId(), user);
+        usersByEmail.remove(normalizeEmail(user.getEmail()), user);
+        usersByPhone.remove(normalizePhone(user.getPhone()), user);
+    }
+
+    // Replace the whole directory (used when loading saved data)
+    // Older files may contain duplicates; the first user seen keeps the index entry
+    public synchronized void loadFrom(Map<String, User> users) {
+        usersById.clear();
+        usersByEmail.clear();
+        usersByPhone.clear();
+        for (User user : users.values()) {
+            usersById.put(user.getUserId(), user);
+            String email = normalizeEmail(user.getEmail());
+            String phone = normalizePhone(user.getPhone());
+            if (!email.isEmpty()) {
+                usersByEmail.putIfAbsent(email, user);
+            }
+            if (!phone.isEmpty()) {
+                usersByPhone.putIfAbsent(phone, user);
+            }
+        }
+    }
+
+    public User get(String userId) {
+        return userId == null ? null : usersById.get(userId);
+    }
+
+    public User findByEmail(String email) {
+        String key = normalizeEmail(email);
+        return key.isEmpty() ? null : usersByEmail.get(key);
+    }
+
+    public User findByPhone(String phone) {
+        String key = normalizePhone(phone);
+        return key.isEmpty() ? null : usersByPhone.get(key);
+    }
+
+    public boolean isEmailTaken(String email) {
+        return findByEmail(email) != null;
+    }
+
+    public boolean isPhoneTaken(String phone) {
+        return findByPhone(phone) != null;
+    }
+
+    public int size() {
+        return usersById.size();
+    }
+
+    // Read-only view - callers can't bypass the indexes
+    public Map<String, User> asMap() {
+        return Collections.unmodifiableMap(usersById);
+    }
+}
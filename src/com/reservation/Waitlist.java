@@ -0,0 +1,87 @@
+package com.reservation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Waitlist for a single transport
+ * The first racQuota passengers hold RAC (Reservation Against Cancellation) status,
+ * everyone after them is WL. Both tiers are sorted sets ordered by waitlist position,
+ * so joining, leaving (from anywhere in the queue) and promoting are all O(log n)
+ */
+public class Waitlist {
+    // Positions are handed out under the system lock as passengers join; tickets saved
+    // before positions existed have position 0 and fall back to ticket ID order
+    static final Comparator<Ticket> BOOKING_ORDER =
+        Comparator.comparingLong(Ticket::getWaitlistPosition)
+            .thenComparingInt((Ticket t) -> t.getTicketId().length())
+            .thenComparing(Ticket::getTicketId);
+
+    private final int racQuota;
+    private final TreeSet<Ticket> racQueue = new TreeSet<>(BOOKING_ORDER);
+    private final TreeSet<Ticket> wlQueue = new TreeSet<>(BOOKING_ORDER);
+
+    public Waitlist(int racQuota) {
+        this.racQuota = racQuota;
+    }
+
+    // Add a ticket to the back of the waitlist and set its status to RAC or WL
+    public void add(Ticket ticket) {
+        if (racQueue.size() < racQuota && wlQueue.isEmpty()) {
+            ticket.setStatus("RAC");
+            racQueue.add(ticket);
+        } else {
+            ticket.setStatus("WL");
+            wlQueue.add(ticket);
+        }
+    }
+
+    // Take up to count passengers from the front of the waitlist (RAC first)
+    // The caller assigns the seats and confirms the tickets; WL passengers moved up to
+    // RAC are appended to movedToRac so the caller can record their status change
+    public List<Ticket> promote(int count, List<Ticket> movedToRac) {
+        List<Ticket> promoted = new ArrayList<>(Math.min(count, size()));
+        while (promoted.size() < count) {
+            Ticket next = racQueue.pollFirst();
+            if (next == null) {
+                next = wlQueue.pollFirst();
+            }
+            if (next == null) {
+                break;
+            }
+            promoted.add(next);
+        }
+        refillRac(movedToRac);
+        return promoted;
+    }
+
+    // Remove a waitlisted ticket (passenger cancelled before being promoted)
+    // WL passengers moved up to RAC in its place are appended to movedToRac
+    public boolean remove(Ticket ticket, List<Ticket> movedToRac) {
+        boolean removed = racQueue.remove(ticket) || wlQueue.remove(ticket);
+        if (removed) {
+            refillRac(movedToRac);
+        }
+        return removed;
+    }
+
+    // Move WL passengers up into free RAC slots
+    private void refillRac(List<Ticket> movedToRac) {
+        while (racQueue.size() < racQuota && !wlQueue.isEmpty()) {
+            Ticket next = wlQueue.pollFirst();
+            next.setStatus("RAC");
+            racQueue.add(next);
+            movedToRac.add(next);
+        }
+    }
+
+    public int size() {
+        return racQueue.size() + wlQueue.size();
+    }
+
+    public boolean isEmpty() {
+        return racQueue.isEmpty() && wlQueue.isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package com.reservation;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * WriteBehindFlusher - background thread that writes data for GROUP_COMMIT and ASYNC modes
+ * Mutations only bump a sequence number; the flusher snapshots the state once for every
+ * batch of pending mutations and commits it to the DataStore off the caller's thread.
+ * If too many mutations are waiting to be written, callers are held back until it catches up.
+ */
+public class WriteBehindFlusher {
+    // Serializes the current state - called while holding the state lock
+    public interface SnapshotSource {
+        Map<String, byte[]> snapshot() throws IOException;
+    }
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final DataStore dataStore;
+    private final Object stateLock;
+    private final SnapshotSource source;
+    private final DurabilityMode mode;
+    private final long groupCommitMillis;
+    private final long maxPendingMutations;
+
+    private final Object monitor = new Object();
+    private long dirtySequence; // last mutation made in memory
+    private long durableSequence; // last mutation written to disk
+    private long flushCount;
+    private boolean running = true;
+    private final Thread thread;
+
+    public WriteBehindFlusher(DataStore dataStore, Object stateLock, SnapshotSource source,
+                              DurabilityMode mode, long groupCommitMillis, long maxPendingMutations) {
+        this.dataStore = dataStore;
+        this.stateLock = stateLock;
+        this.source = source;
+        this.mode = mode;
+        this.groupCommitMillis = groupCommitMillis;
+        this.maxPendingMutations = maxPendingMutations;
+        this.thread = new Thread(this::run, "goreserve-flusher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Record a mutation - call while holding the state lock; returns its sequence number
+    public long markDirty() {
+        synchronized (monitor) {
+            dirtySequence++;
+            monitor.notifyAll();
+            return dirtySequence;
+        }
+    }
+
+    // Call after releasing the state lock: waits for disk in GROUP_COMMIT mode,
+    // and applies back-pressure in both modes when the flusher falls behind
+    public void awaitDurability(long sequence) {
+        synchronized (monitor) {
+            try {
+                if (mode == DurabilityMode.GROUP_COMMIT) {
+                    while (durableSequence < sequence && running) {
+                        monitor.wait();
+                    }
+                }
+                while (dirtySequence - durableSequence > maxPendingMutations && running) {
+                    monitor.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Write everything that is still pending and stop the thread
+    public void close() {
+        synchronized (monitor) {
+            running = false;
+            monitor.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getFlushCount() {
+        synchronized (monitor) {
+            return flushCount;
+        }
+    }
+
+    public long getPendingMutations() {
+        synchronized (monitor) {
+            return dirtySequence - durableSequence;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (monitor) {
+                try {
+                    while (durableSequence == dirtySequence && running) {
+                        monitor.wait();
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                if (durableSequence == dirtySequence && !running) {
+                    monitor.notifyAll();
+                    return;
+                }
+            }
+
+            // Let more mutations pile up so one write covers all of them
+            if (mode == DurabilityMode.GROUP_COMMIT && isRunning()) {
+                sleep(groupCommitMillis);
+            }
+
+            if (!flush() && isRunning()) {
+                sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    // Snapshot under the state lock, then write outside it
+    private boolean flush() {
+        long sequence;
+        Map<String, byte[]> files;
+        try {
+            synchronized (stateLock) {
+                synchronized (monitor) {
+                    sequence = dirtySequence;
+                }
+                files = source.snapshot();
+            }
+            dataStore.commit(files);
+        } catch (IOException e) {
+            System.err.println("⚠️  Error saving data: " + e.getMessage());
+            if (!isRunning()) {
+                // Give up on shutdown rather than retrying forever
+                synchronized (monitor) {
+                    durableSequence = dirtySequence;
+                    monitor.notifyAll();
+                }
+            }
+            return false;
+        }
+
+        synchronized (monitor) {
+            durableSequence = Math.max(durableSequence, sequence);
+            flushCount++;
+            monitor.notifyAll();
+        }
+        return true;
+    }
+
+    private boolean isRunning() {
+        synchronized (monitor) {
+            return running;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}